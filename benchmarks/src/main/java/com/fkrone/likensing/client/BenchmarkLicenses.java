@@ -0,0 +1,101 @@
+package com.fkrone.likensing.client;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Generates keys and signed licenses of realistic size for the benchmarks.
+ */
+final class BenchmarkLicenses {
+
+    /**
+     * Contains a timestamp far in the future for licenses which should stay valid.
+     */
+    static final long VALID_UNTIL = 4102354800000L;
+
+    /**
+     * Contains a timestamp in the past for licenses which should be expired.
+     */
+    static final long EXPIRED = 946684800000L;
+
+    private BenchmarkLicenses() {
+    }
+
+    static KeyPair generateKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+
+    static String encodePublicKey(KeyPair keyPair) {
+        return Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded());
+    }
+
+    static String randomScope() {
+        return UUID.randomUUID().toString();
+    }
+
+    static String featureName(int index) {
+        return "product.module" + (index / 10) + ".feature" + index;
+    }
+
+    /**
+     * Creates a license for the given scope which is signed in a way the given parsing mode accepts it.
+     * <p>
+     * The DOM based parsing verifies the licensed properties as re-serialized by the transformer of the running
+     * Java version, so licenses for this mode are signed over exactly this representation.
+     *
+     * @param keyPair      the keys to sign the license with
+     * @param scopeUid     the scope the license is for
+     * @param validUntil   the timestamp until which the license is valid
+     * @param featureCount the number of licensed features
+     * @param parsingMode  the parsing mode which has to accept the license
+     * @return the base64 encoded license
+     * @throws Exception if creating the license fails
+     */
+    static String createLicense(KeyPair keyPair,
+                                String scopeUid,
+                                long validUntil,
+                                int featureCount,
+                                LicenseParsingMode parsingMode) throws Exception {
+        StringBuilder properties = new StringBuilder("<licensedProperties>\n<licensedFeatures>\n");
+        for (int i = 0; i < featureCount; i++) {
+            properties.append("<feature>").append(featureName(i)).append("</feature>\n");
+        }
+        properties.append("</licensedFeatures>\n<validUntil>")
+                  .append(validUntil)
+                  .append("</validUntil>\n<scopeUid>")
+                  .append(scopeUid)
+                  .append("</scopeUid>\n</licensedProperties>");
+
+        byte[] signedContent = (properties + "\n").getBytes(StandardCharsets.UTF_8);
+        if (parsingMode == LicenseParsingMode.DOM) {
+            LicenseParser parser = new LicenseParser(keyPair.getPublic(), LicenseParsingMode.DOM);
+            Document document = parser.parseLicenseXML(encode(properties.toString(), ""));
+            Node licensedProperties = document.getElementsByTagName("licensedProperties").item(0);
+            signedContent = parser.nodeToBytes(licensedProperties);
+        }
+
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(keyPair.getPrivate());
+        signature.update(signedContent);
+        return encode(properties.toString(), Base64.getEncoder().encodeToString(signature.sign()));
+    }
+
+    private static String encode(String licensedProperties, String signKey) {
+        String license = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><license>\n"
+                         + licensedProperties
+                         + "\n<signKey>"
+                         + signKey
+                         + "</signKey>\n</license>\n";
+        return Base64.getEncoder().encodeToString(license.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,190 @@
+package com.fkrone.likensing.client;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.KeyPair;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the checks performed on the request path for known, unknown and expired scopes.
+ * <p>
+ * Run with <tt>-t 1</tt>, <tt>-t 2</tt>, ... <tt>-t max</tt> to see how the checks scale with the number of
+ * threads. The <tt>checkWhileImporting</tt> group measures the checks while another thread keeps importing
+ * licenses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckBenchmark {
+
+    @Param({"1000", "10000"})
+    public int scopeCount;
+
+    private static final int FEATURE_COUNT = 30;
+
+    private LicenseChecker licenseChecker;
+    private String knownScope;
+    private String expiredScope;
+    private String unknownScope;
+    private String wildcardScope;
+    private ScopeHandle knownScopeHandle;
+    private String licensedFeature;
+    private Feature licensedFeatureToken;
+    private String[] checkedFeatures;
+    private Feature[] checkedFeatureTokens;
+    private List<String> reimportedLicenses;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        KeyPair keyPair = BenchmarkLicenses.generateKeyPair();
+        LicenseChecker.initLicenseChecker(BenchmarkLicenses.encodePublicKey(keyPair));
+        licenseChecker = LicenseChecker.getChecker();
+        licenseChecker.setVerificationCacheCapacity(0);
+
+        List<String> licenses = new ArrayList<>(scopeCount);
+        for (int i = 0; i < scopeCount - 1; i++) {
+            licenses.add(BenchmarkLicenses.createLicense(keyPair,
+                                                         BenchmarkLicenses.randomScope(),
+                                                         BenchmarkLicenses.VALID_UNTIL,
+                                                         FEATURE_COUNT,
+                                                         LicenseParsingMode.STREAMING));
+        }
+        expiredScope = BenchmarkLicenses.randomScope();
+        licenses.add(BenchmarkLicenses.createLicense(keyPair,
+                                                     expiredScope,
+                                                     BenchmarkLicenses.EXPIRED,
+                                                     FEATURE_COUNT,
+                                                     LicenseParsingMode.STREAMING));
+        List<LicenseImportResult> results = licenseChecker.importLicenses(licenses);
+        knownScope = results.get(scopeCount / 2).getScopeUid();
+        unknownScope = BenchmarkLicenses.randomScope();
+        knownScopeHandle = licenseChecker.scopeHandle(knownScope);
+        licensedFeature = BenchmarkLicenses.featureName(FEATURE_COUNT / 2);
+        licensedFeatureToken = Feature.of(licensedFeature);
+        checkedFeatures = new String[FEATURE_COUNT];
+        checkedFeatureTokens = new Feature[FEATURE_COUNT];
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            checkedFeatures[i] = BenchmarkLicenses.featureName(i);
+            checkedFeatureTokens[i] = Feature.of(checkedFeatures[i]);
+        }
+        reimportedLicenses = licenses.subList(0, Math.min(licenses.size(), 100));
+
+        wildcardScope = BenchmarkLicenses.randomScope();
+        licenseChecker.getRegistry()
+                      .publish(new LicenseData(wildcardScope,
+                                               FeatureSet.of(Arrays.asList("product.module0.*",
+                                                                           "product.module1.*",
+                                                                           "product.module2.*")),
+                                               LocalDate.now().plusYears(1)));
+    }
+
+    @Benchmark
+    public boolean hasLicenseHit() {
+        return licenseChecker.hasLicense(knownScope);
+    }
+
+    @Benchmark
+    public boolean hasLicenseMiss() {
+        return licenseChecker.hasLicense(unknownScope);
+    }
+
+    @Benchmark
+    public boolean isLicensedHit() {
+        return licenseChecker.isLicensed(knownScope, licensedFeature);
+    }
+
+    @Benchmark
+    public boolean isLicensedHitWithFeatureToken() {
+        return licenseChecker.isLicensed(knownScope, licensedFeatureToken);
+    }
+
+    @Benchmark
+    public boolean isLicensedHitWithScopeHandle() {
+        return knownScopeHandle.isLicensed(licensedFeature);
+    }
+
+    @Benchmark
+    public boolean isLicensedHitWithScopeHandleAndFeatureToken() {
+        return knownScopeHandle.isLicensed(licensedFeatureToken);
+    }
+
+    @Benchmark
+    public boolean isLicensedUnknownFeature() {
+        return licenseChecker.isLicensed(knownScope, "unknown.feature");
+    }
+
+    @Benchmark
+    public boolean isLicensedHitViaWildcard() {
+        return licenseChecker.isLicensed(wildcardScope, licensedFeature);
+    }
+
+    @Benchmark
+    public boolean isLicensedHitViaWildcardWithFeatureToken() {
+        return licenseChecker.isLicensed(wildcardScope, licensedFeatureToken);
+    }
+
+    @Benchmark
+    public boolean isLicensedMiss() {
+        return licenseChecker.isLicensed(unknownScope, licensedFeature);
+    }
+
+    @Benchmark
+    public boolean isLicensedExpired() {
+        return licenseChecker.isLicensed(expiredScope, licensedFeature);
+    }
+
+    @Benchmark
+    public int isLicensedForAllFeatures() {
+        int licensedFeatures = 0;
+        for (String feature : checkedFeatures) {
+            if (licenseChecker.isLicensed(knownScope, feature)) {
+                licensedFeatures++;
+            }
+        }
+        return licensedFeatures;
+    }
+
+    @Benchmark
+    public long checkFeaturesForAllFeatures() {
+        return licenseChecker.checkFeatureNames(knownScope, checkedFeatures);
+    }
+
+    @Benchmark
+    public long checkFeaturesForAllFeatureTokens() {
+        return licenseChecker.checkFeatures(knownScope, checkedFeatureTokens);
+    }
+
+    @Benchmark
+    @Group("checkWhileImporting")
+    @GroupThreads(3)
+    public boolean checkDuringImports() {
+        return licenseChecker.isLicensed(knownScope, licensedFeature);
+    }
+
+    @Benchmark
+    @Group("checkWhileImporting")
+    @GroupThreads(1)
+    public List<LicenseImportResult> importDuringChecks() {
+        return licenseChecker.importLicenses(reimportedLicenses);
+    }
+}
@@ -0,0 +1,136 @@
+package com.fkrone.likensing.client;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures importing licenses end to end, i.e. from the base64 encoded license to the published license.
+ * <p>
+ * Run with <tt>-prof gc</tt> to compare the allocations of importing strings and buffers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImportBenchmark {
+
+    @Param({"STREAMING", "DOM"})
+    public LicenseParsingMode parsingMode;
+
+    @Param({"10", "200"})
+    public int featureCount;
+
+    /**
+     * Contains the number of licenses imported per invocation by the batch benchmarks.
+     */
+    @Param({"1000"})
+    public int batchSize;
+
+    private LicenseChecker licenseChecker;
+    private LicenseChecker lazyLicenseChecker;
+    private String license;
+    private ByteBuffer licenseBuffer;
+    private List<String> licenses;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        KeyPair keyPair = BenchmarkLicenses.generateKeyPair();
+        LicenseChecker.initLicenseChecker(BenchmarkLicenses.encodePublicKey(keyPair));
+        licenseChecker = LicenseChecker.getChecker();
+        licenseChecker.setParsingMode(parsingMode);
+        lazyLicenseChecker = LicenseChecker.createChecker(BenchmarkLicenses.encodePublicKey(keyPair));
+        lazyLicenseChecker.setVerificationMode(LicenseVerificationMode.LAZY);
+
+        license = BenchmarkLicenses.createLicense(keyPair,
+                                                  BenchmarkLicenses.randomScope(),
+                                                  BenchmarkLicenses.VALID_UNTIL,
+                                                  featureCount,
+                                                  parsingMode);
+        licenseBuffer = ByteBuffer.wrap(license.getBytes(StandardCharsets.ISO_8859_1));
+        licenses = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            licenses.add(BenchmarkLicenses.createLicense(keyPair,
+                                                         BenchmarkLicenses.randomScope(),
+                                                         BenchmarkLicenses.VALID_UNTIL,
+                                                         featureCount,
+                                                         parsingMode));
+        }
+    }
+
+    /**
+     * Imports a single license which has to be parsed and verified.
+     */
+    @Benchmark
+    public void importLicense() throws Exception {
+        licenseChecker.setVerificationCacheCapacity(0);
+        licenseChecker.importLicense(license);
+    }
+
+    /**
+     * Imports a single license from a buffer which has to be parsed and verified.
+     */
+    @Benchmark
+    public void importLicenseBuffer() throws Exception {
+        licenseChecker.setVerificationCacheCapacity(0);
+        licenseChecker.importLicense(licenseBuffer);
+    }
+
+    /**
+     * Imports a single license which has already been verified.
+     */
+    @Benchmark
+    public void reimportLicense() throws Exception {
+        licenseChecker.setVerificationCacheCapacity(VerifiedLicenseCache.DEFAULT_CAPACITY);
+        licenseChecker.importLicense(license);
+    }
+
+    /**
+     * Imports a batch of licenses which have to be parsed and verified in parallel.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<LicenseImportResult> importLicenses() {
+        licenseChecker.setVerificationCacheCapacity(0);
+        return licenseChecker.importLicenses(licenses);
+    }
+
+    /**
+     * Imports a batch of licenses whose verification is deferred to the first check of their scopes.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<LicenseImportResult> importLicensesLazily() {
+        return lazyLicenseChecker.importLicenses(licenses);
+    }
+
+    /**
+     * Imports a batch of licenses one by one on the calling thread.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void importLicensesSequentially() throws Exception {
+        licenseChecker.setVerificationCacheCapacity(0);
+        for (String batchLicense : licenses) {
+            licenseChecker.importLicense(batchLicense);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.fkrone.likensing.client;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.security.KeyPair;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the stages of {@link LicenseParser} separately.
+ * <p>
+ * The DOM based stages are measured with a license signed for {@link LicenseParsingMode#DOM}, the streaming
+ * parser with one signed for {@link LicenseParsingMode#STREAMING}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserStagesBenchmark {
+
+    @Param({"10", "200"})
+    public int featureCount;
+
+    private LicenseParser domParser;
+    private LicenseParser streamingParser;
+    private KeyPair keyPair;
+    private String domLicense;
+    private String streamingLicense;
+    private Node licensedProperties;
+    private byte[] signedContent;
+    private byte[] signKey;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        keyPair = BenchmarkLicenses.generateKeyPair();
+        domParser = new LicenseParser(keyPair.getPublic(), LicenseParsingMode.DOM);
+        streamingParser = new LicenseParser(keyPair.getPublic(), LicenseParsingMode.STREAMING);
+        String scope = BenchmarkLicenses.randomScope();
+        domLicense = BenchmarkLicenses.createLicense(keyPair,
+                                                     scope,
+                                                     BenchmarkLicenses.VALID_UNTIL,
+                                                     featureCount,
+                                                     LicenseParsingMode.DOM);
+        streamingLicense = BenchmarkLicenses.createLicense(keyPair,
+                                                           scope,
+                                                           BenchmarkLicenses.VALID_UNTIL,
+                                                           featureCount,
+                                                           LicenseParsingMode.STREAMING);
+
+        Element root = domParser.parseLicenseXML(domLicense).getDocumentElement();
+        licensedProperties = root.getElementsByTagName("licensedProperties").item(0);
+        signedContent = domParser.nodeToBytes(licensedProperties);
+        signKey = Base64.getDecoder().decode(root.getElementsByTagName("signKey").item(0).getTextContent().trim());
+    }
+
+    @Benchmark
+    public byte[] decodeBase64() {
+        return domParser.decodeBase64(domLicense);
+    }
+
+    /**
+     * Decodes and parses the license into a DOM.
+     */
+    @Benchmark
+    public Document parseXml() throws Exception {
+        return domParser.parseLicenseXML(domLicense);
+    }
+
+    @Benchmark
+    public byte[] nodeToBytes() throws Exception {
+        return domParser.nodeToBytes(licensedProperties);
+    }
+
+    @Benchmark
+    public boolean verifySignature() throws Exception {
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initVerify(keyPair.getPublic());
+        signature.update(signedContent);
+        return signature.verify(signKey);
+    }
+
+    @Benchmark
+    public LicenseData parseLicenseDom() throws Exception {
+        return domParser.parseLicense(domLicense);
+    }
+
+    @Benchmark
+    public LicenseData parseLicenseStreaming() throws Exception {
+        return streamingParser.parseLicense(streamingLicense);
+    }
+}
@@ -0,0 +1,83 @@
+package com.fkrone.likensing.client;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the heap retained by the licenses of a checker for each {@link LicenseStorageMode}.
+ * <p>
+ * As JMH measures time and allocations but not retained memory, this is a plain program. Each scope is licensed
+ * for one of a few editions, like in a multi-tenant deployment. The licenses are created the way the parser
+ * creates them, i.e. with a feature set and feature names of their own, and are published directly, as signing a
+ * million licenses would take far too long.
+ * <p>
+ * Run with <tt>java -Xmx2g -cp benchmarks/target/benchmarks.jar com.fkrone.likensing.client.RegistryFootprint</tt>
+ * and optionally pass the number of scopes, which defaults to one million.
+ */
+public final class RegistryFootprint {
+
+    private static final int EDITION_COUNT = 40;
+    private static final int FEATURE_COUNT = 200;
+    private static final int FEATURES_PER_EDITION = 30;
+
+    private RegistryFootprint() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int scopeCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<List<String>> editions = createEditions();
+
+        for (LicenseStorageMode storageMode : LicenseStorageMode.values()) {
+            long heapBefore = usedHeap();
+            LicenseChecker licenseChecker = LicenseChecker.createChecker();
+            licenseChecker.setStorageMode(storageMode);
+            publishLicenses(licenseChecker, scopeCount, editions);
+            long retainedBytes = usedHeap() - heapBefore;
+
+            System.out.printf("%-8s %,10d scopes %,8d MiB %,6d bytes per scope%n",
+                              storageMode,
+                              licenseChecker.getRegistry().snapshot().size(),
+                              retainedBytes / (1024 * 1024),
+                              retainedBytes / scopeCount);
+        }
+    }
+
+    private static List<List<String>> createEditions() {
+        Random random = new Random(42);
+        List<List<String>> editions = new ArrayList<>(EDITION_COUNT);
+        for (int i = 0; i < EDITION_COUNT; i++) {
+            List<String> features = new ArrayList<>(FEATURES_PER_EDITION);
+            for (int j = 0; j < FEATURES_PER_EDITION; j++) {
+                features.add(BenchmarkLicenses.featureName(random.nextInt(FEATURE_COUNT)));
+            }
+            editions.add(features);
+        }
+        return editions;
+    }
+
+    private static void publishLicenses(LicenseChecker licenseChecker, int scopeCount, List<List<String>> editions) {
+        LocalDate validUntil = LocalDate.now().plusYears(1);
+        List<LicenseData> licenses = new ArrayList<>(scopeCount);
+        for (int i = 0; i < scopeCount; i++) {
+            List<String> features = new ArrayList<>(FEATURES_PER_EDITION);
+            for (String feature : editions.get(i % editions.size())) {
+                features.add(new String(feature));
+            }
+            licenses.add(new LicenseData(BenchmarkLicenses.randomScope(), FeatureSet.of(features), validUntil));
+        }
+        licenseChecker.getRegistry().publishAll(licenses);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
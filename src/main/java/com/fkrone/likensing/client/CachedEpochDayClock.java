@@ -0,0 +1,64 @@
+package com.fkrone.likensing.client;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * A {@link LicenseClock} which caches the current day.
+ * <p>
+ * Reading the day only needs the current milliseconds of the underlying clock and a comparison against the
+ * bounds of the cached day. The day is only recomputed, which involves a time zone lookup, once the clock
+ * leaves these bounds.
+ */
+class CachedEpochDayClock implements LicenseClock {
+
+    private final Clock clock;
+    private volatile Day day;
+
+    /**
+     * Creates a new clock reading the time from the given clock.
+     *
+     * @param clock the clock to read the current time from
+     */
+    CachedEpochDayClock(Clock clock) {
+        this.clock = clock;
+        this.day = computeDay(clock.millis());
+    }
+
+    @Override
+    public long currentEpochDay() {
+        long now = clock.millis();
+        Day currentDay = day;
+        if (now < currentDay.startMillis || now >= currentDay.endMillis) {
+            currentDay = computeDay(now);
+            day = currentDay;
+        }
+        return currentDay.epochDay;
+    }
+
+    private Day computeDay(long millis) {
+        ZoneId zone = clock.getZone();
+        LocalDate date = Instant.ofEpochMilli(millis).atZone(zone).toLocalDate();
+        long startMillis = date.atStartOfDay(zone).toInstant().toEpochMilli();
+        long endMillis = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        return new Day(date.toEpochDay(), startMillis, endMillis);
+    }
+
+    /**
+     * Represents a cached day along with the milliseconds it starts at (inclusive) and ends at (exclusive).
+     */
+    private static class Day {
+
+        private final long epochDay;
+        private final long startMillis;
+        private final long endMillis;
+
+        Day(long epochDay, long startMillis, long endMillis) {
+            this.epochDay = epochDay;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+    }
+}
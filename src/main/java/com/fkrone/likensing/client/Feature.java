@@ -0,0 +1,75 @@
+package com.fkrone.likensing.client;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Represents a feature which can be licensed.
+ * <p>
+ * Each feature name is resolved once to a unique token carrying a numeric id. Checking a feature by its token
+ * via {@link LicenseChecker#isLicensed(String, Feature)} is a single bit test instead of hashing and comparing
+ * the feature name. Tokens are therefore best resolved once and kept in a constant.
+ * <p>
+ * Tokens are shared by all checkers and kept as long as this class is loaded, as their ids have to stay stable for
+ * every license referencing them. Names are only registered by {@link #of(String)} and by importing licenses,
+ * checking a feature by its name never registers it. So the registry grows with the number of distinct feature
+ * names used by licenses and callers, not with the number of checks. The features of a license are kept in a way
+ * that does not depend on the size of the registry, see {@link FeatureSet}.
+ */
+public final class Feature {
+
+    private static final ConcurrentMap<String, Feature> features = new ConcurrentHashMap<>();
+    private static final AtomicInteger nextId = new AtomicInteger();
+
+    private final String name;
+    private final int id;
+
+    private Feature(String name, int id) {
+        this.name = name;
+        this.id = id;
+    }
+
+    /**
+     * Returns the token for the feature with the given name.
+     * <p>
+     * The feature is registered if it is not known yet.
+     *
+     * @param name the name of the feature
+     * @return the token representing the feature
+     */
+    public static Feature of(String name) {
+        if (name == null || "".equals(name)) {
+            throw new IllegalArgumentException("Please provide a valid feature name");
+        }
+        return features.computeIfAbsent(name, featureName -> new Feature(featureName, nextId.getAndIncrement()));
+    }
+
+    /**
+     * Returns the token for the feature with the given name without registering it.
+     *
+     * @param name the name of the feature
+     * @return the token representing the feature or <tt>null</tt> if the feature is not known
+     */
+    static Feature lookup(String name) {
+        return features.get(name);
+    }
+
+    /**
+     * Returns the name of the feature.
+     *
+     * @return the name of the feature
+     */
+    public String getName() {
+        return name;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
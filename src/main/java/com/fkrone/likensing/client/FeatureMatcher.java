@@ -0,0 +1,129 @@
+package com.fkrone.likensing.client;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Matches feature names against the wildcard entries of a license.
+ * <p>
+ * Features are organized hierarchically with <tt>.</tt> as separator. A wildcard entry like <tt>reporting.*</tt>
+ * licenses every feature below <tt>reporting</tt>, e.g. <tt>reporting.sales</tt> or
+ * <tt>reporting.sales.export</tt>, but not <tt>reporting</tt> itself. The entry <tt>*</tt> licenses all
+ * features.
+ * <p>
+ * The prefixes of all wildcard entries are compiled into a trie of characters. Matching a feature name walks the
+ * trie once, so it takes time proportional to the length of the name regardless of the number of entries and
+ * without splitting the name or evaluating a regular expression.
+ */
+class FeatureMatcher {
+
+    /**
+     * Contains the separator of the levels of a feature name.
+     */
+    static final char SEPARATOR = '.';
+
+    /**
+     * Contains the wildcard matching one or more levels of a feature name.
+     */
+    static final String WILDCARD = "*";
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root = new Node();
+
+    private FeatureMatcher() {
+    }
+
+    /**
+     * Determines whether the given feature entry is a wildcard entry.
+     *
+     * @param featureEntry the feature entry of a license
+     * @return <tt>true</tt> if the entry is <tt>*</tt> or ends with <tt>.*</tt>, <tt>false</tt> otherwise
+     */
+    static boolean isWildcard(String featureEntry) {
+        int length = featureEntry.length();
+        return featureEntry.endsWith(WILDCARD) && (length == 1 || featureEntry.charAt(length - 2) == SEPARATOR);
+    }
+
+    /**
+     * Compiles the given wildcard entries into a matcher.
+     *
+     * @param wildcardEntries the wildcard entries, each accepted by {@link #isWildcard(String)}
+     * @return a matcher for the given entries
+     */
+    static FeatureMatcher compile(Collection<String> wildcardEntries) {
+        FeatureMatcher matcher = new FeatureMatcher();
+        for (String wildcardEntry : wildcardEntries) {
+            Node node = matcher.root;
+            // the separator in front of the wildcard is kept, so reporting.* does not match reportingFoo
+            for (int i = 0; i < wildcardEntry.length() - 1; i++) {
+                node = node.obtainChild(wildcardEntry.charAt(i));
+            }
+            node.wildcard = true;
+        }
+        return matcher;
+    }
+
+    /**
+     * Checks whether the given feature name is matched by one of the wildcard entries.
+     *
+     * @param featureName the name of the feature to check
+     * @return <tt>true</tt> if the feature is matched, <tt>false</tt> otherwise
+     */
+    boolean matches(String featureName) {
+        Node node = root;
+        int length = featureName.length();
+        for (int i = 0; i < length; i++) {
+            if (node.wildcard) {
+                return true;
+            }
+            node = node.findChild(featureName.charAt(i));
+            if (node == null) {
+                return false;
+            }
+        }
+        // a wildcard needs at least one more character to match
+        return false;
+    }
+
+    /**
+     * Represents a node of the trie with its children sorted by their character.
+     */
+    private static class Node {
+
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private boolean wildcard;
+
+        Node findChild(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index < 0 ? null : children[index];
+        }
+
+        Node obtainChild(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index >= 0) {
+                return children[index];
+            }
+
+            int insertionPoint = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertionPoint);
+            System.arraycopy(children, 0, newChildren, 0, insertionPoint);
+            System.arraycopy(keys, insertionPoint, newKeys, insertionPoint + 1, keys.length - insertionPoint);
+            System.arraycopy(children,
+                             insertionPoint,
+                             newChildren,
+                             insertionPoint + 1,
+                             children.length - insertionPoint);
+            Node child = new Node();
+            newKeys[insertionPoint] = key;
+            newChildren[insertionPoint] = child;
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+    }
+}
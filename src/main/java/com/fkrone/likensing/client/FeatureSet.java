@@ -0,0 +1,184 @@
+package com.fkrone.likensing.client;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Represents the features licensed by a license as a compact bitset indexed by the id of each {@link Feature}.
+ * <p>
+ * As a bitset is sized by the highest id it contains, a set whose features have ids far above their number, e.g.
+ * after many distinct feature names have been registered, keeps the sorted ids of its features instead. So the size
+ * of a set depends on the number of its features rather than on the number of all features known.
+ * <p>
+ * Wildcard entries like <tt>reporting.*</tt> are not expanded but compiled into a {@link FeatureMatcher}, which is
+ * only consulted if the bitset does not contain a feature.
+ * <p>
+ * Sets are immutable and two sets are equal if they contain the same features and wildcard entries, so licenses
+ * with identical features can share a single set.
+ */
+class FeatureSet {
+
+    private static final String[] NO_WILDCARD_ENTRIES = new String[0];
+    private static final long[] NO_BITS = new long[0];
+
+    /**
+     * Contains the number of words up to which a bitset is used regardless of the number of features, as testing a
+     * bit is faster than searching the sorted ids.
+     */
+    private static final int MAX_DENSE_WORDS = 8;
+
+    static final FeatureSet EMPTY = new FeatureSet(new Feature[0], NO_BITS, null, NO_WILDCARD_ENTRIES, null);
+
+    private final Feature[] features;
+    private final long[] bits;
+    private final int[] sortedIds;
+    private final String[] wildcardEntries;
+    private final FeatureMatcher wildcards;
+    private final int hashCode;
+
+    private FeatureSet(Feature[] features,
+                       long[] bits,
+                       int[] sortedIds,
+                       String[] wildcardEntries,
+                       FeatureMatcher wildcards) {
+        this.features = features;
+        this.bits = bits;
+        this.sortedIds = sortedIds;
+        this.wildcardEntries = wildcardEntries;
+        this.wildcards = wildcards;
+        this.hashCode = 31 * (31 * Arrays.hashCode(bits) + Arrays.hashCode(sortedIds))
+                        + Arrays.hashCode(wildcardEntries);
+    }
+
+    /**
+     * Creates a new set containing the features with the given names.
+     * <p>
+     * Empty names are skipped as they cannot be checked anyway. Names accepted by
+     * {@link FeatureMatcher#isWildcard(String)} are compiled into a matcher instead of being registered as features.
+     *
+     * @param featureNames the names of the features
+     * @return a set containing the given features
+     */
+    static FeatureSet of(Collection<String> featureNames) {
+        Set<Feature> uniqueFeatures = new LinkedHashSet<>();
+        Set<String> uniqueWildcardEntries = new LinkedHashSet<>();
+        int maxId = -1;
+        for (String featureName : featureNames) {
+            if (featureName == null || "".equals(featureName)) {
+                continue;
+            }
+            if (FeatureMatcher.isWildcard(featureName)) {
+                uniqueWildcardEntries.add(featureName);
+                continue;
+            }
+            Feature feature = Feature.of(featureName);
+            uniqueFeatures.add(feature);
+            maxId = Math.max(maxId, feature.getId());
+        }
+        if (uniqueFeatures.isEmpty() && uniqueWildcardEntries.isEmpty()) {
+            return EMPTY;
+        }
+
+        Feature[] features = uniqueFeatures.toArray(new Feature[0]);
+        // the wildcard entries are sorted, so equal sets have equal arrays
+        String[] wildcardEntries = uniqueWildcardEntries.toArray(NO_WILDCARD_ENTRIES);
+        Arrays.sort(wildcardEntries);
+        FeatureMatcher wildcards =
+                uniqueWildcardEntries.isEmpty() ? null : FeatureMatcher.compile(uniqueWildcardEntries);
+
+        // the representation only depends on the ids, so equal features lead to equal arrays
+        int words = maxId < 0 ? 0 : (maxId >>> 6) + 1;
+        if (words > MAX_DENSE_WORDS && words > features.length / 2) {
+            int[] sortedIds = new int[features.length];
+            for (int i = 0; i < features.length; i++) {
+                sortedIds[i] = features[i].getId();
+            }
+            Arrays.sort(sortedIds);
+            return new FeatureSet(features, NO_BITS, sortedIds, wildcardEntries, wildcards);
+        }
+
+        long[] bits = new long[words];
+        for (Feature feature : features) {
+            bits[feature.getId() >>> 6] |= 1L << feature.getId();
+        }
+        return new FeatureSet(features, bits, null, wildcardEntries, wildcards);
+    }
+
+    /**
+     * Checks whether the given feature is contained in the set, either directly or via a wildcard entry.
+     *
+     * @param feature the feature to check
+     * @return <tt>true</tt> if the feature is contained, <tt>false</tt> otherwise
+     */
+    boolean contains(Feature feature) {
+        int id = feature.getId();
+        int word = id >>> 6;
+        if (word < bits.length && (bits[word] & (1L << id)) != 0) {
+            return true;
+        }
+        if (sortedIds != null && Arrays.binarySearch(sortedIds, id) >= 0) {
+            return true;
+        }
+        return wildcards != null && wildcards.matches(feature.getName());
+    }
+
+    /**
+     * Checks whether the feature with the given name is contained in the set, either directly or via a wildcard
+     * entry.
+     * <p>
+     * In contrast to {@link Feature#of(String)} the name is not registered, as checking arbitrary names must not
+     * grow the global feature registry.
+     *
+     * @param featureName the name of the feature to check
+     * @return <tt>true</tt> if the feature is contained, <tt>false</tt> otherwise
+     */
+    boolean contains(String featureName) {
+        Feature feature = Feature.lookup(featureName);
+        if (feature != null) {
+            return contains(feature);
+        }
+        return wildcards != null && wildcards.matches(featureName);
+    }
+
+    /**
+     * Returns the names of all features and wildcard entries contained in the set.
+     *
+     * @return an unmodifiable set containing the names of the features
+     */
+    Set<String> getNames() {
+        Set<String> names = new LinkedHashSet<>();
+        for (Feature feature : features) {
+            names.add(feature.getName());
+        }
+        Collections.addAll(names, wildcardEntries);
+        return Collections.unmodifiableSet(names);
+    }
+
+    int size() {
+        return features.length + wildcardEntries.length;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof FeatureSet)) {
+            return false;
+        }
+        FeatureSet otherSet = (FeatureSet) other;
+        // as the bitset is sized by the highest id it contains, equal features lead to equal bitsets
+        return hashCode == otherSet.hashCode
+               && Arrays.equals(bits, otherSet.bits)
+               && Arrays.equals(sortedIds, otherSet.sortedIds)
+               && Arrays.equals(wildcardEntries, otherSet.wildcardEntries);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
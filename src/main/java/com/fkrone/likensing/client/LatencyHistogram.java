@@ -0,0 +1,61 @@
+package com.fkrone.likensing.client;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records durations into buckets of exponentially growing size.
+ * <p>
+ * Bucket <tt>i</tt> counts durations of less than <tt>2^i</tt> nanoseconds which do not fit into a smaller
+ * bucket. All buckets are striped counters, so recording never contends between threads.
+ */
+class LatencyHistogram {
+
+    /**
+     * Contains the number of buckets, which is sufficient for any positive long.
+     */
+    static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records the given duration.
+     *
+     * @param durationNanos the duration in nanoseconds
+     */
+    void record(long durationNanos) {
+        long duration = Math.max(0, durationNanos);
+        buckets[BUCKETS - Long.numberOfLeadingZeros(duration)].increment();
+        totalNanos.add(duration);
+        maxNanos.accumulate(duration);
+    }
+
+    /**
+     * Returns the number of durations recorded per bucket.
+     *
+     * @return the number of durations recorded per bucket
+     */
+    long[] getBucketCounts() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    long getMaxNanos() {
+        return maxNanos.get();
+    }
+}
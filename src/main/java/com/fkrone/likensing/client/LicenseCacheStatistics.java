@@ -0,0 +1,62 @@
+package com.fkrone.likensing.client;
+
+/**
+ * Contains the statistics of the cache remembering already verified licenses.
+ *
+ * @see LicenseChecker#getVerificationCacheStatistics()
+ */
+public class LicenseCacheStatistics {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int size;
+
+    LicenseCacheStatistics(long hits, long misses, long evictions, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    /**
+     * Returns how often an imported license was found in the cache and did not need to be verified again.
+     *
+     * @return the number of cache hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns how often an imported license was not found in the cache and had to be verified.
+     *
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns how many licenses were removed from the cache to make room for others.
+     *
+     * @return the number of evicted licenses
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of licenses currently cached.
+     *
+     * @return the number of cached licenses
+     */
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "hits: " + hits + ", misses: " + misses + ", evictions: " + evictions + ", size: " + size;
+    }
+}
@@ -0,0 +1,27 @@
+package com.fkrone.likensing.client;
+
+/**
+ * Enumerates the possible outcomes of checking whether a feature is licensed.
+ */
+public enum LicenseCheckOutcome {
+
+    /**
+     * The feature is licensed for the scope.
+     */
+    LICENSED,
+
+    /**
+     * The scope has a valid license which does not contain the feature.
+     */
+    FEATURE_NOT_LICENSED,
+
+    /**
+     * No license is known for the scope.
+     */
+    UNKNOWN_SCOPE,
+
+    /**
+     * The license of the scope has expired.
+     */
+    EXPIRED
+}
@@ -1,8 +1,15 @@
 package com.fkrone.likensing.client;
 
 import javax.xml.transform.TransformerException;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.InvalidKeyException;
 import java.security.KeyFactory;
 import java.security.NoSuchAlgorithmException;
@@ -11,27 +18,59 @@ import java.security.Signature;
 import java.security.SignatureException;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.X509EncodedKeySpec;
-import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Base64;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Handles licensing.
+ * <p>
+ * Besides the global checker initialized via {@link #initLicenseChecker(String)}, independent checkers can be
+ * created via {@link #createChecker(String...)}. Each checker verifies licenses against its own set of public
+ * keys, which can be changed at any time to rotate keys.
  */
 public class LicenseChecker {
 
-    private static LicenseChecker licenseCheckerInstance;
-    private static Map<String, LicenseData> licensedData = new HashMap<>();
-    private PublicKey publicKey;
+    private static final Logger LOG = Logger.getLogger(LicenseChecker.class.getName());
 
     /**
-     * Initialize the license checker with the provided public key.
+     * License files larger than this are memory mapped instead of being read into the heap.
+     */
+    private static final long MAPPING_THRESHOLD = 64 * 1024;
+
+    private static volatile LicenseChecker licenseCheckerInstance;
+    private final LicenseRegistry registry;
+    private final AtomicReference<LicenseKeyRing> keyRing = new AtomicReference<>(LicenseKeyRing.EMPTY);
+    private final LicenseParser licenseParser = new LicenseParser(LicenseKeyRing.EMPTY, LicenseParsingMode.STREAMING);
+    private final VerifiedLicenseCache verificationCache = new VerifiedLicenseCache();
+    private final LicenseClock clock;
+    private final Map<String, PendingLicense> pendingLicenses;
+    private volatile LicenseVerificationMode verificationMode = LicenseVerificationMode.EAGER;
+    private volatile Executor importExecutor = ForkJoinPool.commonPool();
+    private volatile LicenseMetricsListener metricsListener;
+
+    /**
+     * Initialize the license checker without any public key.
      *
-     * @param publicKey the public key used to check licenses
+     * @param clock           the clock supplying the current day to check the validity of licenses against
+     * @param previousChecker the checker whose licenses are taken over or <tt>null</tt> to start without licenses
      */
-    private LicenseChecker(PublicKey publicKey) {
-        this.publicKey = publicKey;
+    private LicenseChecker(LicenseClock clock, LicenseChecker previousChecker) {
+        this.clock = clock;
+        this.registry = previousChecker == null ? new LicenseRegistry() : previousChecker.registry;
+        this.pendingLicenses = previousChecker == null ? new ConcurrentHashMap<>() : previousChecker.pendingLicenses;
     }
 
     /**
@@ -50,12 +89,183 @@ public class LicenseChecker {
 
     /**
      * Initializes the license checker with the given public key.
+     * <p>
+     * Licenses imported into a previously initialized checker stay available.
      *
      * @param publicKey the public key which will used to check licenses
      * @throws NoSuchAlgorithmException if the signature algorithm is not available
      * @throws InvalidKeyException      if the public key to verify the license is invalid
      */
     public static void initLicenseChecker(String publicKey) throws NoSuchAlgorithmException, InvalidKeySpecException {
+        initLicenseChecker(publicKey, LicenseClock.systemDefault());
+    }
+
+    /**
+     * Initializes the license checker with the given public key and clock.
+     * <p>
+     * Licenses imported into a previously initialized checker stay available, as they did when all licenses were
+     * kept globally. Licenses imported via {@link LicenseVerificationMode#LAZY} which have not been verified yet are
+     * still verified against the keys of the checker they were imported into. Use {@link #removeLicense(String)} to
+     * drop licenses which must no longer be used.
+     *
+     * @param publicKey the public key which will used to check licenses
+     * @param clock     the clock supplying the current day to check the validity of licenses against
+     * @throws NoSuchAlgorithmException if the signature algorithm is not available
+     * @throws InvalidKeyException      if the public key to verify the license is invalid
+     */
+    public static void initLicenseChecker(String publicKey, LicenseClock clock)
+            throws NoSuchAlgorithmException, InvalidKeySpecException {
+        if (clock == null) {
+            throw new IllegalArgumentException("Provide a valid clock");
+        }
+        if (publicKey == null || "".equals(publicKey)) {
+            throw new IllegalArgumentException("Provide a valid public key");
+        }
+        synchronized (LicenseChecker.class) {
+            licenseCheckerInstance = createChecker(clock, licenseCheckerInstance, publicKey);
+        }
+    }
+
+    /**
+     * Creates a new checker which verifies licenses against the given public keys.
+     * <p>
+     * Unlike {@link #initLicenseChecker(String)} this does not affect the checker returned by {@link #getChecker()}.
+     * The first given key is used for licenses which do not name the key they were signed with.
+     *
+     * @param publicKeys the public keys which will be used to check licenses, may be empty to add keys later
+     * @return a new checker using the given public keys
+     * @throws NoSuchAlgorithmException if the signature algorithm is not available
+     * @throws InvalidKeySpecException  if a public key cannot be decoded
+     */
+    public static LicenseChecker createChecker(String... publicKeys)
+            throws NoSuchAlgorithmException, InvalidKeySpecException {
+        return createChecker(LicenseClock.systemDefault(), publicKeys);
+    }
+
+    /**
+     * Creates a new checker which verifies licenses against the given public keys using the given clock.
+     *
+     * @param clock      the clock supplying the current day to check the validity of licenses against
+     * @param publicKeys the public keys which will be used to check licenses, may be empty to add keys later
+     * @return a new checker using the given public keys
+     * @throws NoSuchAlgorithmException if the signature algorithm is not available
+     * @throws InvalidKeySpecException  if a public key cannot be decoded
+     * @see #createChecker(String...)
+     */
+    public static LicenseChecker createChecker(LicenseClock clock, String... publicKeys)
+            throws NoSuchAlgorithmException, InvalidKeySpecException {
+        if (clock == null) {
+            throw new IllegalArgumentException("Provide a valid clock");
+        }
+        return createChecker(clock, null, publicKeys);
+    }
+
+    private static LicenseChecker createChecker(LicenseClock clock,
+                                                LicenseChecker previousChecker,
+                                                String... publicKeys)
+            throws NoSuchAlgorithmException, InvalidKeySpecException {
+        if (publicKeys == null) {
+            throw new IllegalArgumentException("Provide valid public keys");
+        }
+        LicenseChecker checker = new LicenseChecker(clock, previousChecker);
+        for (String publicKey : publicKeys) {
+            checker.addKey(publicKey);
+        }
+        return checker;
+    }
+
+    /**
+     * Adds the given public key to the keys licenses are verified against.
+     * <p>
+     * The key is identified by its id, which is the SHA-256 fingerprint of the encoded key as hex string. A license
+     * names the key it was signed with in the <tt>keyId</tt> attribute of its root element, so it is verified
+     * against exactly one key. If no key was known before, the given key becomes the default key which is used for
+     * licenses which do not name a key.
+     *
+     * @param publicKey the public key to add
+     * @return the id of the added key
+     * @throws NoSuchAlgorithmException if the signature algorithm is not available
+     * @throws InvalidKeySpecException  if the public key cannot be decoded
+     */
+    public String addKey(String publicKey) throws NoSuchAlgorithmException, InvalidKeySpecException {
+        PublicKey parsedPublicKey = parsePublicKey(publicKey);
+        String keyId = LicenseKeyRing.computeKeyId(parsedPublicKey);
+        updateKeyRing(ring -> ring.withKey(keyId, parsedPublicKey));
+        return keyId;
+    }
+
+    /**
+     * Adds the given public key using the given key id.
+     *
+     * @param keyId     the id licenses signed with the key name in the <tt>keyId</tt> attribute of their root element
+     * @param publicKey the public key to add
+     * @throws NoSuchAlgorithmException if the signature algorithm is not available
+     * @throws InvalidKeySpecException  if the public key cannot be decoded
+     * @see #addKey(String)
+     */
+    public void addKey(String keyId, String publicKey) throws NoSuchAlgorithmException, InvalidKeySpecException {
+        if (keyId == null || "".equals(keyId)) {
+            throw new IllegalArgumentException("Provide a valid key id");
+        }
+        PublicKey parsedPublicKey = parsePublicKey(publicKey);
+        updateKeyRing(ring -> ring.withKey(keyId, parsedPublicKey));
+    }
+
+    /**
+     * Removes the key with the given id.
+     * <p>
+     * Licenses which have already been imported stay available. Licenses imported from now on which name the
+     * removed key are rejected. If the removed key was the default key, licenses which do not name a key are
+     * rejected until another default key is set via {@link #setDefaultKey(String)}.
+     *
+     * @param keyId the id of the key to remove
+     */
+    public void removeKey(String keyId) {
+        if (keyId == null || "".equals(keyId)) {
+            throw new IllegalArgumentException("Provide a valid key id");
+        }
+        updateKeyRing(ring -> ring.withoutKey(keyId));
+    }
+
+    /**
+     * Sets the key used for licenses which do not name the key they were signed with.
+     *
+     * @param keyId the id of a known key
+     */
+    public void setDefaultKey(String keyId) {
+        if (keyId == null || "".equals(keyId)) {
+            throw new IllegalArgumentException("Provide a valid key id");
+        }
+        updateKeyRing(ring -> ring.withDefaultKey(keyId));
+    }
+
+    /**
+     * Returns the ids of all keys licenses are verified against.
+     *
+     * @return an unmodifiable set containing the ids of all known keys
+     */
+    public Set<String> getKeyIds() {
+        return keyRing.get().getKeyIds();
+    }
+
+    /**
+     * Returns the id of the key used for licenses which do not name the key they were signed with.
+     *
+     * @return the id of the default key or <tt>null</tt> if there is no default key
+     */
+    public String getDefaultKeyId() {
+        return keyRing.get().getDefaultKeyId();
+    }
+
+    private void updateKeyRing(UnaryOperator<LicenseKeyRing> modifier) {
+        LicenseKeyRing previousKeyRing = keyRing.getAndUpdate(modifier);
+        if (previousKeyRing != keyRing.get()) {
+            // licenses verified with the previous keys are identified by a digest which can no longer match
+            verificationCache.clear();
+        }
+    }
+
+    private static PublicKey parsePublicKey(String publicKey) throws NoSuchAlgorithmException, InvalidKeySpecException {
         if (publicKey == null || "".equals(publicKey)) {
             throw new IllegalArgumentException("Provide a valid public key");
         }
@@ -67,14 +277,113 @@ public class LicenseChecker {
             PublicKey parsedPublicKey = keyFactory.generatePublic(keySpecPb);
             // checking if key is valid
             Signature.getInstance("SHA256withRSA").initVerify(parsedPublicKey);
-            licenseCheckerInstance = new LicenseChecker(parsedPublicKey);
+            return parsedPublicKey;
         } catch (InvalidKeyException e) {
             throw new IllegalArgumentException("Provide a valid public key", e);
         }
     }
 
+    /**
+     * Sets the mode used to parse and verify licenses imported from now on.
+     * <p>
+     * By default licenses are parsed via {@link LicenseParsingMode#STREAMING}.
+     *
+     * @param parsingMode the mode used to parse licenses
+     */
+    public void setParsingMode(LicenseParsingMode parsingMode) {
+        if (parsingMode == null) {
+            throw new IllegalArgumentException("Provide a valid parsing mode");
+        }
+        licenseParser.setParsingMode(parsingMode);
+    }
+
+    /**
+     * Sets when licenses imported as string from now on are verified.
+     * <p>
+     * By default licenses are verified via {@link LicenseVerificationMode#EAGER}.
+     *
+     * @param verificationMode the mode determining when licenses are verified
+     */
+    public void setVerificationMode(LicenseVerificationMode verificationMode) {
+        if (verificationMode == null) {
+            throw new IllegalArgumentException("Provide a valid verification mode");
+        }
+        this.verificationMode = verificationMode;
+    }
+
+    /**
+     * Sets how verified licenses are kept in memory.
+     * <p>
+     * By default licenses are kept via {@link LicenseStorageMode#STANDARD}. Only licenses imported from now on are
+     * affected, known licenses are kept as they are.
+     *
+     * @param storageMode the mode to keep licenses in
+     */
+    public void setStorageMode(LicenseStorageMode storageMode) {
+        if (storageMode == null) {
+            throw new IllegalArgumentException("Provide a valid storage mode");
+        }
+        registry.setStorageMode(storageMode);
+    }
+
+    /**
+     * Sets the executor used to parse and verify licenses imported via {@link #importLicenses(Collection)}.
+     * <p>
+     * By default the {@link ForkJoinPool#commonPool() common pool} is used.
+     *
+     * @param importExecutor the executor to parse and verify licenses on
+     */
+    public void setImportExecutor(Executor importExecutor) {
+        if (importExecutor == null) {
+            throw new IllegalArgumentException("Provide a valid executor");
+        }
+        this.importExecutor = importExecutor;
+    }
+
+    /**
+     * Sets the listener which receives metrics about checks and imports.
+     * <p>
+     * By default no metrics are recorded, which keeps the checks free of any overhead. Pass a {@link LicenseMetrics}
+     * to collect metrics which can be read via {@link LicenseMetrics#snapshot()}.
+     *
+     * @param metricsListener the listener receiving metrics or <tt>null</tt> to stop recording metrics
+     */
+    public void setMetricsListener(LicenseMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+        licenseParser.setMetricsListener(metricsListener);
+    }
+
+    /**
+     * Sets how many already verified licenses are remembered.
+     * <p>
+     * Importing a license which is remembered skips parsing and verifying it again. By default
+     * 10.000 licenses are remembered, the least recently imported ones are evicted first.
+     *
+     * @param capacity the maximal number of remembered licenses, 0 disables remembering licenses
+     */
+    public void setVerificationCacheCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Provide a capacity of at least 0");
+        }
+        verificationCache.setCapacity(capacity);
+    }
+
+    /**
+     * Returns the statistics of the cache remembering already verified licenses.
+     *
+     * @return the current statistics of the verification cache
+     */
+    public LicenseCacheStatistics getVerificationCacheStatistics() {
+        return verificationCache.getStatistics();
+    }
+
     /**
      * Imports the given license.
+     * <p>
+     * Line breaks and other characters outside of the base64 alphabet are ignored, just like for licenses provided
+     * as bytes.
+     * <p>
+     * When using {@link LicenseVerificationMode#LAZY}, the license is only verified on the first check of its scope.
      *
      * @param license the license to import
      * @throws NoSuchAlgorithmException if the signature algorithm is not available
@@ -86,14 +395,510 @@ public class LicenseChecker {
     public void importLicense(String license)
             throws TransformerException, NoSuchAlgorithmException, InvalidKeyException, IOException,
                    SignatureException {
+        if (verificationMode == LicenseVerificationMode.LAZY) {
+            deferLicense(license);
+        } else {
+            publish(parseLicense(license));
+        }
+    }
+
+    /**
+     * Imports the given license provided as base64 encoded bytes.
+     * <p>
+     * The license is verified right away, even when using {@link LicenseVerificationMode#LAZY}.
+     *
+     * @param license the license to import
+     * @throws NoSuchAlgorithmException if the signature algorithm is not available
+     * @throws InvalidKeyException      if the public key to verify the license is invalid
+     * @throws TransformerException     if parsing the license fails
+     * @throws SignatureException       if a forged license is found
+     * @throws IOException              if parsing the license fails due to internal handling
+     * @see #importLicense(ByteBuffer)
+     */
+    public void importLicense(byte[] license)
+            throws TransformerException, NoSuchAlgorithmException, InvalidKeyException, IOException,
+                   SignatureException {
+        if (license == null) {
+            throw new IllegalArgumentException("Empty license found.");
+        }
+        importLicense(ByteBuffer.wrap(license));
+    }
+
+    /**
+     * Imports the remaining bytes of the given buffer as base64 encoded license.
+     * <p>
+     * The license is decoded while being parsed, so neither the encoded nor the decoded license is copied as a
+     * whole. This also holds for memory mapped buffers. Line breaks and other characters outside of the base64
+     * alphabet are ignored. The position of the buffer is not changed. The license is verified right away, even
+     * when using {@link LicenseVerificationMode#LAZY}.
+     *
+     * @param license the license to import
+     * @throws NoSuchAlgorithmException if the signature algorithm is not available
+     * @throws InvalidKeyException      if the public key to verify the license is invalid
+     * @throws TransformerException     if parsing the license fails
+     * @throws SignatureException       if a forged license is found
+     * @throws IOException              if parsing the license fails due to internal handling
+     */
+    public void importLicense(ByteBuffer license)
+            throws TransformerException, NoSuchAlgorithmException, InvalidKeyException, IOException,
+                   SignatureException {
+        publish(parseLicense(license, keyRing.get()));
+    }
+
+    /**
+     * Imports the base64 encoded license read from the given stream.
+     * <p>
+     * The license is decoded and parsed while being read. As the license is never held as a whole, it cannot be
+     * looked up in the cache of already verified licenses. The stream is read to its end but not closed. The
+     * license is verified right away, even when using {@link LicenseVerificationMode#LAZY}.
+     *
+     * @param license the stream providing the license to import
+     * @throws NoSuchAlgorithmException if the signature algorithm is not available
+     * @throws InvalidKeyException      if the public key to verify the license is invalid
+     * @throws TransformerException     if parsing the license fails
+     * @throws SignatureException       if a forged license is found
+     * @throws IOException              if reading the license fails
+     * @see #importLicense(ByteBuffer)
+     */
+    public void importLicense(InputStream license)
+            throws TransformerException, NoSuchAlgorithmException, InvalidKeyException, IOException,
+                   SignatureException {
+        if (license == null) {
+            throw new IllegalArgumentException("Empty license found.");
+        }
+        LicenseMetricsListener listener = metricsListener;
+        long importStart = listener == null ? 0 : System.nanoTime();
+        LicenseData licenseData = licenseParser.parseLicense(new UncloseableInputStream(license), keyRing.get());
+        reportImport(listener, importStart);
+        publish(licenseData);
+    }
+
+    /**
+     * Imports the base64 encoded license stored in the given file.
+     * <p>
+     * Large files are memory mapped instead of being read into the heap. The license is verified right away, even
+     * when using {@link LicenseVerificationMode#LAZY}.
+     *
+     * @param licenseFile the file containing the license to import
+     * @throws NoSuchAlgorithmException if the signature algorithm is not available
+     * @throws InvalidKeyException      if the public key to verify the license is invalid
+     * @throws TransformerException     if parsing the license fails
+     * @throws SignatureException       if a forged license is found
+     * @throws IOException              if reading the license fails
+     * @see #importLicense(ByteBuffer)
+     */
+    public void importLicense(Path licenseFile)
+            throws TransformerException, NoSuchAlgorithmException, InvalidKeyException, IOException,
+                   SignatureException {
+        publish(parseLicenseFile(licenseFile));
+    }
+
+    /**
+     * Imports the licenses stored in the given files.
+     * <p>
+     * The files are read, parsed and verified in parallel on the {@link #setImportExecutor(Executor) import
+     * executor}. Afterwards all successfully verified licenses are published in one atomic step. Like
+     * {@link #importLicense(Path)}, the licenses are verified right away, even when using
+     * {@link LicenseVerificationMode#LAZY}.
+     *
+     * @param licenseFiles the files containing the licenses to import
+     * @return the result for each file in the order of the given files
+     * @see #importLicense(Path)
+     */
+    public List<LicenseImportResult> importLicenseFiles(Collection<Path> licenseFiles) {
+        return importLicensesAsync(licenseFiles, importExecutor, this::parseLicenseFile).join();
+    }
+
+    /**
+     * Imports all given licenses.
+     * <p>
+     * The licenses are parsed and verified in parallel on the {@link #setImportExecutor(Executor) import executor}.
+     * Afterwards all successfully verified licenses are published in one atomic step. A license which fails to
+     * import does not affect the others. When using {@link LicenseVerificationMode#LAZY}, only the scope uids of
+     * the licenses are extracted, which is reported via {@link LicenseImportResult#isDeferred()}.
+     *
+     * @param licenses the licenses to import
+     * @return the result for each license in the order of the given licenses
+     */
+    public List<LicenseImportResult> importLicenses(Collection<String> licenses) {
+        return importLicensesAsync(licenses).join();
+    }
+
+    /**
+     * Imports all given licenses asynchronously on the {@link #setImportExecutor(Executor) import executor}.
+     *
+     * @param licenses the licenses to import
+     * @return a future completed with the result for each license in the order of the given licenses once all
+     * successfully verified licenses have been published
+     * @see #importLicenses(Collection)
+     */
+    public CompletableFuture<List<LicenseImportResult>> importLicensesAsync(Collection<String> licenses) {
+        return importLicensesAsync(licenses, importExecutor);
+    }
+
+    /**
+     * Imports all given licenses asynchronously on the given executor.
+     *
+     * @param licenses the licenses to import
+     * @param executor the executor to parse and verify the licenses on
+     * @return a future completed with the result for each license in the order of the given licenses once all
+     * successfully verified licenses have been published
+     * @see #importLicenses(Collection)
+     */
+    public CompletableFuture<List<LicenseImportResult>> importLicensesAsync(Collection<String> licenses,
+                                                                            Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Provide a valid executor");
+        }
+        if (verificationMode == LicenseVerificationMode.LAZY) {
+            return deferLicensesAsync(licenses, executor);
+        }
+        return importLicensesAsync(licenses, executor, this::parseLicense);
+    }
+
+    private CompletableFuture<List<LicenseImportResult>> deferLicensesAsync(Collection<String> licenses,
+                                                                            Executor executor) {
+        if (licenses == null) {
+            throw new IllegalArgumentException("Provide valid licenses");
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            List<LicenseImportResult> results = new ArrayList<>(licenses.size());
+            for (String license : licenses) {
+                try {
+                    results.add(LicenseImportResult.deferred(deferLicense(license)));
+                } catch (Exception e) {
+                    results.add(LicenseImportResult.failure(e));
+                }
+            }
+            return results;
+        }, executor);
+    }
+
+    /**
+     * Remembers the given license to verify it on the first check of its scope.
+     * <p>
+     * A license previously imported for the scope stays published until the given license has been verified and
+     * replaces it. So a forged license does not revoke the license it was meant to replace.
+     *
+     * @param license the license to import
+     * @return the scope uid the license claims to be for
+     * @throws IOException if reading the license fails due to internal handling
+     */
+    private String deferLicense(String license) throws IOException {
         if (license == null || "".equals(license)) {
             throw new IllegalArgumentException("Empty license found.");
         }
+        String scopeUid = licenseParser.readScopeUid(license);
+        if (scopeUid.isEmpty()) {
+            throw new IllegalArgumentException("License without scope uid found.");
+        }
+        pendingLicenses.put(scopeUid, new PendingLicense(scopeUid, license));
+        return scopeUid;
+    }
 
-        LicenseParser licenseParser = new LicenseParser(publicKey);
-        LicenseData scopeLicensedData = licenseParser.parseLicense(license);
+    /**
+     * Publishes the given verified license, replacing a license of the scope which has not been verified yet.
+     * <p>
+     * The license is published while holding the pending entry of its scope, so a license deferred concurrently is
+     * either replaced or replaces the published one, but never gets lost. The listeners of the registry are only
+     * notified once the entry has been released.
+     *
+     * @param licenseData the license to publish
+     */
+    private void publish(LicenseData licenseData) {
+        LicenseData sharedLicenseData = registry.share(licenseData);
+        pendingLicenses.compute(sharedLicenseData.getScopeId(), (scope, previousLicense) -> {
+            registry.publishSilently(sharedLicenseData);
+            return null;
+        });
+        registry.notifyPublished(sharedLicenseData);
+    }
 
-        licensedData.put(scopeLicensedData.getScopeId(), scopeLicensedData);
+    /**
+     * Publishes all given verified licenses in one atomic step, replacing licenses of their scopes which have not
+     * been verified yet.
+     * <p>
+     * Licenses pending for the scopes are superseded before publishing, so they can no longer replace the published
+     * licenses, and are dropped afterwards. A license deferred for one of the scopes while publishing is kept, as it
+     * replaces the published license.
+     *
+     * @param licenseData the licenses to publish
+     */
+    private void publishAll(Collection<LicenseData> licenseData) {
+        for (LicenseData data : licenseData) {
+            pendingLicenses.computeIfPresent(data.getScopeId(), (scope, pendingLicense) -> pendingLicense.supersede());
+        }
+        registry.publishAll(licenseData);
+        for (LicenseData data : licenseData) {
+            pendingLicenses.computeIfPresent(data.getScopeId(),
+                                             (scope, pendingLicense) -> pendingLicense.superseded ?
+                                                                        null :
+                                                                        pendingLicense);
+        }
+    }
+
+    /**
+     * Imports all given licenses while reusing the verified licenses stored in the given snapshot.
+     * <p>
+     * Licenses contained in the snapshot are taken from it without parsing and verifying them again. All other
+     * licenses are imported like {@link #importLicenses(Collection)} does. Therefore a snapshot which is missing,
+     * corrupt or has been tampered with results in a full import while a snapshot which is only partially up to
+     * date only requires the changed licenses to be verified. Afterwards the snapshot is replaced with one
+     * containing the verified licenses of this import, if it differs.
+     * <p>
+     * Licenses taken from the snapshot are put into the verification cache, just like verified ones, so importing
+     * them again later on does not verify them either. As the snapshot can only contain verified licenses, all
+     * licenses missing in it are verified right away, even when using {@link LicenseVerificationMode#LAZY}.
+     *
+     * @param licenses     the licenses to import
+     * @param snapshotFile the file to read the snapshot from and to write the updated snapshot to
+     * @param snapshotKey  the secret key used to protect the integrity of the snapshot
+     * @return the result for each license in the order of the given licenses
+     */
+    public List<LicenseImportResult> importLicenses(Collection<String> licenses,
+                                                    Path snapshotFile,
+                                                    byte[] snapshotKey) {
+        if (snapshotFile == null) {
+            throw new IllegalArgumentException("Provide a valid snapshot file");
+        }
+        if (snapshotKey == null || snapshotKey.length == 0) {
+            throw new IllegalArgumentException("Provide a valid snapshot key");
+        }
+
+        LicenseKeyRing currentKeyRing = keyRing.get();
+        Map<ByteBuffer, LicenseData> snapshot = LicenseSnapshot.read(snapshotFile, snapshotKey);
+        Map<ByteBuffer, LicenseData> verifiedLicenses = new ConcurrentHashMap<>();
+        List<LicenseImportResult> results = importLicensesAsync(licenses, importExecutor, license -> {
+            if (license == null || "".equals(license)) {
+                throw new IllegalArgumentException("Empty license found.");
+            }
+            ByteBuffer digest = verificationCache.computeKey(currentKeyRing, license);
+            LicenseData licenseData = snapshot.get(digest);
+            if (licenseData == null) {
+                // the snapshot uses the same digest as the verification cache, so the license is hashed only once
+                licenseData = parseLicense(license, currentKeyRing, verificationCache.isEnabled() ? digest : null);
+            } else if (verificationCache.isEnabled()) {
+                // the snapshot uses the same digest as the verification cache
+                licenseData = registry.share(licenseData);
+                verificationCache.put(digest, licenseData);
+            }
+            verifiedLicenses.put(digest, licenseData);
+            return licenseData;
+        }).join();
+
+        if (!verifiedLicenses.keySet().equals(snapshot.keySet())) {
+            try {
+                LicenseSnapshot.write(snapshotFile, snapshotKey, verifiedLicenses);
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Failed to write license snapshot " + snapshotFile, e);
+            }
+        }
+        return results;
+    }
+
+    private <L> CompletableFuture<List<LicenseImportResult>> importLicensesAsync(Collection<L> licenses,
+                                                                                Executor executor,
+                                                                                LicenseImporter<L> importer) {
+        if (licenses == null) {
+            throw new IllegalArgumentException("Provide valid licenses");
+        }
+
+        List<CompletableFuture<LicenseImportResult>> parsedLicenses = new ArrayList<>(licenses.size());
+        for (L license : licenses) {
+            parsedLicenses.add(CompletableFuture.supplyAsync(() -> importForBatch(license, importer), executor));
+        }
+
+        return CompletableFuture.allOf(parsedLicenses.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            List<LicenseImportResult> results = new ArrayList<>(parsedLicenses.size());
+            List<LicenseData> verifiedLicenses = new ArrayList<>(parsedLicenses.size());
+            for (CompletableFuture<LicenseImportResult> parsedLicense : parsedLicenses) {
+                LicenseImportResult result = parsedLicense.join();
+                results.add(result);
+                if (result.isSuccessful()) {
+                    verifiedLicenses.add(result.getLicenseData());
+                }
+            }
+            publishAll(verifiedLicenses);
+            return results;
+        });
+    }
+
+    private <L> LicenseImportResult importForBatch(L license, LicenseImporter<L> importer) {
+        try {
+            return LicenseImportResult.success(importer.importLicense(license));
+        } catch (Exception e) {
+            return LicenseImportResult.failure(e);
+        }
+    }
+
+    /**
+     * Turns a license into a verified {@link LicenseData} as part of a batch import.
+     *
+     * @param <L> the type of the imported licenses
+     */
+    @FunctionalInterface
+    private interface LicenseImporter<L> {
+
+        LicenseData importLicense(L license) throws Exception;
+    }
+
+    private LicenseData parseLicense(String license)
+            throws TransformerException, NoSuchAlgorithmException, InvalidKeyException, IOException,
+                   SignatureException {
+        return parseLicense(license, keyRing.get());
+    }
+
+    private LicenseData parseLicense(String license, LicenseKeyRing currentKeyRing)
+            throws TransformerException, NoSuchAlgorithmException, InvalidKeyException, IOException,
+                   SignatureException {
+        if (license == null || "".equals(license)) {
+            throw new IllegalArgumentException("Empty license found.");
+        }
+        ByteBuffer cacheKey = null;
+        if (verificationCache.isEnabled()) {
+            cacheKey = verificationCache.computeKey(currentKeyRing, license);
+        }
+        return parseLicense(license, currentKeyRing, cacheKey);
+    }
+
+    private LicenseData parseLicense(String license, LicenseKeyRing currentKeyRing, ByteBuffer cacheKey)
+            throws TransformerException, NoSuchAlgorithmException, InvalidKeyException, IOException,
+                   SignatureException {
+        LicenseMetricsListener listener = metricsListener;
+        long importStart = listener == null ? 0 : System.nanoTime();
+
+        LicenseData licenseData =
+                verifyUnlessCached(cacheKey, () -> licenseParser.parseLicense(license, currentKeyRing));
+
+        reportImport(listener, importStart);
+        return licenseData;
+    }
+
+    private LicenseData parseLicense(ByteBuffer license, LicenseKeyRing currentKeyRing)
+            throws TransformerException, NoSuchAlgorithmException, InvalidKeyException, IOException,
+                   SignatureException {
+        if (license == null || !license.hasRemaining()) {
+            throw new IllegalArgumentException("Empty license found.");
+        }
+        LicenseMetricsListener listener = metricsListener;
+        long importStart = listener == null ? 0 : System.nanoTime();
+
+        ByteBuffer cacheKey = null;
+        if (verificationCache.isEnabled()) {
+            cacheKey = verificationCache.computeKey(currentKeyRing, license);
+        }
+        LicenseData licenseData = verifyUnlessCached(cacheKey, () -> licenseParser.parseLicense(
+                new ByteBufferInputStream(license), currentKeyRing));
+
+        reportImport(listener, importStart);
+        return licenseData;
+    }
+
+    private LicenseData parseLicenseFile(Path licenseFile)
+            throws TransformerException, NoSuchAlgorithmException, InvalidKeyException, IOException,
+                   SignatureException {
+        if (licenseFile == null) {
+            throw new IllegalArgumentException("Provide a valid license file");
+        }
+        try (FileChannel channel = FileChannel.open(licenseFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAPPING_THRESHOLD) {
+                return parseLicense(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), keyRing.get());
+            }
+        }
+        return parseLicense(ByteBuffer.wrap(Files.readAllBytes(licenseFile)), keyRing.get());
+    }
+
+    /**
+     * Returns the license remembered for the given cache key or verifies it.
+     * <p>
+     * The license is returned as the registry publishes it, i.e. sharing its feature set if licenses are kept
+     * compact, and remembered that way. So importing the same license again publishes the very same instance.
+     *
+     * @param cacheKey     the key of the license in the verification cache or <tt>null</tt> if it is not cached
+     * @param verification parses and verifies the license if it is not remembered
+     * @return the verified license
+     */
+    private LicenseData verifyUnlessCached(ByteBuffer cacheKey, LicenseVerification verification)
+            throws TransformerException, NoSuchAlgorithmException, InvalidKeyException, IOException,
+                   SignatureException {
+        LicenseData cachedLicenseData = cacheKey == null ? null : verificationCache.get(cacheKey);
+        LicenseData licenseData = registry.share(cachedLicenseData == null ? verification.verify() : cachedLicenseData);
+        // also replaces licenses remembered before the storage mode was changed to share feature sets
+        if (cacheKey != null && licenseData != cachedLicenseData) {
+            verificationCache.put(cacheKey, licenseData);
+        }
+        return licenseData;
+    }
+
+    private void reportImport(LicenseMetricsListener listener, long importStart) {
+        if (listener != null) {
+            listener.onImportStage(LicenseImportStage.IMPORT, System.nanoTime() - importStart);
+        }
+    }
+
+    /**
+     * Parses and verifies a license which is not remembered by the verification cache.
+     */
+    @FunctionalInterface
+    private interface LicenseVerification {
+
+        LicenseData verify()
+                throws TransformerException, NoSuchAlgorithmException, InvalidKeyException, IOException,
+                       SignatureException;
+    }
+
+    /**
+     * Keeps the parser from closing a stream which is owned by the caller.
+     */
+    private static class UncloseableInputStream extends FilterInputStream {
+
+        UncloseableInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() {
+            // the stream is closed by its owner
+        }
+    }
+
+    /**
+     * Removes the license of the given scope uid.
+     *
+     * @param scopeUid the uid of the scope to remove the license of
+     */
+    public void removeLicense(String scopeUid) {
+        if (scopeUid == null || "".equals(scopeUid)) {
+            throw new IllegalArgumentException("Please provide a valid scope uid");
+        }
+        AtomicBoolean removed = new AtomicBoolean();
+        pendingLicenses.compute(scopeUid, (scope, pendingLicense) -> {
+            removed.set(registry.removeSilently(scope));
+            return null;
+        });
+        // listeners are notified once the pending entry has been released
+        if (removed.get()) {
+            registry.notifyRemoved(scopeUid);
+        }
+    }
+
+    /**
+     * Returns a handle for checking the given scope repeatedly.
+     * <p>
+     * The handle always sees the current license of the scope, including licenses imported or removed after it
+     * was created. A check via the handle neither validates the scope uid nor looks up the scope in the registry,
+     * it only reads the license of the scope and tests the features. Handles are best kept by long-lived
+     * components checking the same scope often, e.g. the session of a tenant.
+     *
+     * @param scopeUid the uid of the scope to check
+     * @return a handle for checking the given scope
+     */
+    public ScopeHandle scopeHandle(String scopeUid) {
+        if (scopeUid == null || "".equals(scopeUid)) {
+            throw new IllegalArgumentException("Please provide a valid scope uid");
+        }
+        return new ScopeHandle(this, scopeUid, registry.obtainSlot(scopeUid));
     }
 
     /**
@@ -105,10 +910,7 @@ public class LicenseChecker {
      * scope uid, <tt>false</tt> otherwise
      */
     public boolean hasLicense(String scopeUid) {
-        if (scopeUid == null || "".equals(scopeUid)) {
-            throw new IllegalArgumentException("Please provide a valid scope uid");
-        }
-        return licensedData.containsKey(scopeUid);
+        return findLicense(scopeUid) != null;
     }
 
     /**
@@ -119,28 +921,339 @@ public class LicenseChecker {
      * the scope, <tt>false</tt> otherwise
      */
     public boolean isLicenseStillValid(String scopeUid) {
-        if (!hasLicense(scopeUid)) {
-            return false;
-        }
-        LicenseData scopeLicensedData = licensedData.get(scopeUid);
-        if (LocalDate.now().isAfter(scopeLicensedData.getValidUntil())) {
-            return false;
-        }
-        return true;
+        return isStillValid(findLicense(scopeUid));
     }
 
     /**
      * Checks if the given feature is licensed for the given scope uid.
+     * <p>
+     * A feature is licensed if the license contains it or a wildcard entry covering it, e.g. <tt>reporting.*</tt>
+     * covers <tt>reporting.sales</tt>.
      *
      * @param scopeUid the uid of the scope to check
      * @param feature  the feature to check
      * @return <tt>true</tt> the feature is licensed, <tt>false</tt> otherwise
      */
     public boolean isLicensed(String scopeUid, String feature) {
-        if (!isLicenseStillValid(scopeUid)) {
-            return false;
+        return isFeatureLicensed(findLicense(scopeUid), feature);
+    }
+
+    boolean isFeatureLicensed(LicenseData scopeLicensedData, String feature) {
+        LicenseCheckOutcome scopeOutcome = checkScope(scopeLicensedData);
+        if (scopeOutcome != null) {
+            return reportCheck(scopeOutcome);
         }
+        return reportCheck(checkLicensedFeature(scopeLicensedData, feature));
+    }
+
+    /**
+     * Checks if the given feature is licensed for the given scope uid.
+     * <p>
+     * This is the fastest way to check a feature as it only needs a single bit test once the license is found.
+     *
+     * @param scopeUid the uid of the scope to check
+     * @param feature  the feature to check, obtained via {@link Feature#of(String)}
+     * @return <tt>true</tt> the feature is licensed, <tt>false</tt> otherwise
+     */
+    public boolean isLicensed(String scopeUid, Feature feature) {
+        return isFeatureLicensed(findLicense(scopeUid), feature);
+    }
 
-        return licensedData.get(scopeUid).getLicensedFeatures().contains(feature);
+    boolean isFeatureLicensed(LicenseData scopeLicensedData, Feature feature) {
+        return reportCheck(checkFeature(scopeLicensedData, feature));
+    }
+
+    /**
+     * Checks which of the given features are licensed for the given scope uid.
+     * <p>
+     * The license of the scope is looked up and its validity is checked only once for all features. Bit <tt>i</tt>
+     * of the result is set if <tt>features[i]</tt> is licensed, so at most 64 features can be checked at once.
+     *
+     * @param scopeUid the uid of the scope to check
+     * @param features the features to check, obtained via {@link Feature#of(String)}
+     * @return a bitmask containing a set bit for each licensed feature
+     */
+    public long checkFeatures(String scopeUid, Feature... features) {
+        assertValidFeatureCount(features);
+        return checkLicensedFeatures(findLicense(scopeUid), features);
+    }
+
+    long checkLicensedFeatures(LicenseData scopeLicensedData, Feature[] features) {
+        LicenseCheckOutcome scopeOutcome = checkScope(scopeLicensedData);
+        long licensedFeatures = 0;
+        for (int i = 0; i < features.length; i++) {
+            LicenseCheckOutcome outcome =
+                    scopeOutcome != null ? scopeOutcome : checkLicensedFeature(scopeLicensedData, features[i]);
+            if (reportCheck(outcome)) {
+                licensedFeatures |= 1L << i;
+            }
+        }
+        return licensedFeatures;
+    }
+
+    /**
+     * Checks which of the given features are licensed for the given scope uid.
+     *
+     * @param scopeUid the uid of the scope to check
+     * @param features the names of the features to check
+     * @return a bitmask containing a set bit for each licensed feature
+     * @see #checkFeatures(String, Feature...)
+     */
+    public long checkFeatureNames(String scopeUid, String... features) {
+        assertValidFeatureCount(features);
+        return checkLicensedFeatures(findLicense(scopeUid), features);
+    }
+
+    long checkLicensedFeatures(LicenseData scopeLicensedData, String[] features) {
+        LicenseCheckOutcome scopeOutcome = checkScope(scopeLicensedData);
+        long licensedFeatures = 0;
+        for (int i = 0; i < features.length; i++) {
+            LicenseCheckOutcome outcome =
+                    scopeOutcome != null ? scopeOutcome : checkLicensedFeature(scopeLicensedData, features[i]);
+            if (reportCheck(outcome)) {
+                licensedFeatures |= 1L << i;
+            }
+        }
+        return licensedFeatures;
+    }
+
+    /**
+     * Checks which of the given features are licensed for each of the given scope uids.
+     *
+     * @param scopeUids the uids of the scopes to check
+     * @param features  the features to check, obtained via {@link Feature#of(String)}
+     * @return a bitmask for each scope in the order of the given scope uids
+     * @see #checkFeatures(String, Feature...)
+     */
+    public long[] checkFeatures(List<String> scopeUids, Feature... features) {
+        assertValidScopeUids(scopeUids);
+        assertValidFeatureCount(features);
+        long[] licensedFeatures = new long[scopeUids.size()];
+        for (int i = 0; i < licensedFeatures.length; i++) {
+            licensedFeatures[i] = checkLicensedFeatures(findLicense(scopeUids.get(i)), features);
+        }
+        return licensedFeatures;
+    }
+
+    /**
+     * Checks which of the given features are licensed for each of the given scope uids.
+     *
+     * @param scopeUids the uids of the scopes to check
+     * @param features  the names of the features to check
+     * @return a bitmask for each scope in the order of the given scope uids
+     * @see #checkFeatures(String, Feature...)
+     */
+    public long[] checkFeatureNames(List<String> scopeUids, String... features) {
+        assertValidScopeUids(scopeUids);
+        assertValidFeatureCount(features);
+        long[] licensedFeatures = new long[scopeUids.size()];
+        for (int i = 0; i < licensedFeatures.length; i++) {
+            licensedFeatures[i] = checkLicensedFeatures(findLicense(scopeUids.get(i)), features);
+        }
+        return licensedFeatures;
+    }
+
+    private void assertValidScopeUids(List<String> scopeUids) {
+        if (scopeUids == null) {
+            throw new IllegalArgumentException("Provide valid scope uids");
+        }
+    }
+
+    void assertValidFeatureCount(Object[] features) {
+        if (features == null) {
+            throw new IllegalArgumentException("Provide valid features");
+        }
+        if (features.length > Long.SIZE) {
+            throw new IllegalArgumentException("Provide at most " + Long.SIZE + " features");
+        }
+    }
+
+    /**
+     * Looks up the license for the given scope uid in the current snapshot of the registry.
+     *
+     * @param scopeUid the uid of the scope to look up
+     * @return the license of the scope or <tt>null</tt> if no license is available
+     */
+    private LicenseData findLicense(String scopeUid) {
+        if (scopeUid == null || "".equals(scopeUid)) {
+            throw new IllegalArgumentException("Please provide a valid scope uid");
+        }
+        return findPendingLicense(scopeUid, registry.get(scopeUid));
+    }
+
+    /**
+     * Verifies the license of the given scope if it was imported via {@link LicenseVerificationMode#LAZY} and has
+     * not been verified yet.
+     *
+     * @param scopeUid         the uid of the scope to verify the license of
+     * @param publishedLicense the license currently published for the scope, may be <tt>null</tt>
+     * @return the license of the scope or <tt>null</tt> if no valid license is available
+     */
+    LicenseData findPendingLicense(String scopeUid, LicenseData publishedLicense) {
+        if (pendingLicenses.isEmpty()) {
+            return publishedLicense;
+        }
+        return verifyPendingLicense(scopeUid, publishedLicense);
+    }
+
+    /**
+     * Verifies the license of the given scope which was imported via {@link LicenseVerificationMode#LAZY}.
+     *
+     * @param scopeUid         the uid of the scope to verify the license of
+     * @param publishedLicense the license currently published for the scope, may be <tt>null</tt>
+     * @return the license of the scope or <tt>null</tt> if no valid license is available
+     */
+    private LicenseData verifyPendingLicense(String scopeUid, LicenseData publishedLicense) {
+        PendingLicense pendingLicense = pendingLicenses.get(scopeUid);
+        if (pendingLicense == null) {
+            // the license might have been verified concurrently
+            return publishedLicense == null ? registry.get(scopeUid) : publishedLicense;
+        }
+        return pendingLicense.verify();
+    }
+
+    private LicenseCheckOutcome checkFeature(LicenseData scopeLicensedData, Feature feature) {
+        LicenseCheckOutcome scopeOutcome = checkScope(scopeLicensedData);
+        if (scopeOutcome != null) {
+            return scopeOutcome;
+        }
+        return checkLicensedFeature(scopeLicensedData, feature);
+    }
+
+    /**
+     * Checks whether features of the given license can be licensed at all.
+     *
+     * @param scopeLicensedData the license to check, may be <tt>null</tt> if the scope is unknown
+     * @return the outcome for all features of the license or <tt>null</tt> if the features have to be checked
+     */
+    private LicenseCheckOutcome checkScope(LicenseData scopeLicensedData) {
+        if (scopeLicensedData == null) {
+            return LicenseCheckOutcome.UNKNOWN_SCOPE;
+        }
+        if (!scopeLicensedData.isValidOn(clock.currentEpochDay())) {
+            return LicenseCheckOutcome.EXPIRED;
+        }
+        return null;
+    }
+
+    private LicenseCheckOutcome checkLicensedFeature(LicenseData scopeLicensedData, Feature feature) {
+        if (feature == null || !scopeLicensedData.getLicensedFeatures().contains(feature)) {
+            return LicenseCheckOutcome.FEATURE_NOT_LICENSED;
+        }
+        return LicenseCheckOutcome.LICENSED;
+    }
+
+    private LicenseCheckOutcome checkLicensedFeature(LicenseData scopeLicensedData, String featureName) {
+        if (featureName == null || !scopeLicensedData.getLicensedFeatures().contains(featureName)) {
+            return LicenseCheckOutcome.FEATURE_NOT_LICENSED;
+        }
+        return LicenseCheckOutcome.LICENSED;
+    }
+
+    private boolean reportCheck(LicenseCheckOutcome outcome) {
+        LicenseMetricsListener listener = metricsListener;
+        if (listener != null) {
+            listener.onCheck(outcome);
+        }
+        return outcome == LicenseCheckOutcome.LICENSED;
+    }
+
+    /**
+     * Represents a license imported via {@link LicenseVerificationMode#LAZY} which has not been verified yet.
+     */
+    private class PendingLicense {
+
+        private final String scopeUid;
+        private final String license;
+        private boolean verified;
+        private LicenseData verifiedLicense;
+        private boolean published;
+        private volatile boolean superseded;
+
+        PendingLicense(String scopeUid, String license) {
+            this.scopeUid = scopeUid;
+            this.license = license;
+        }
+
+        /**
+         * Verifies and publishes the license unless this already happened.
+         * <p>
+         * Threads racing to check the scope wait for the first one to verify the license, so each license is
+         * verified only once. A license which cannot be verified is dropped and leaves the published license of
+         * the scope untouched.
+         *
+         * @return the license of the scope or <tt>null</tt> if no valid license is available
+         */
+        synchronized LicenseData verify() {
+            if (!verified) {
+                verified = true;
+                verifiedLicense = parseAndAssertScope();
+                pendingLicenses.computeIfPresent(scopeUid, (scope, currentLicense) -> {
+                    // a license imported concurrently replaces this one and must not be overwritten
+                    if (currentLicense != this || superseded) {
+                        return currentLicense;
+                    }
+                    if (verifiedLicense != null) {
+                        registry.publishSilently(verifiedLicense);
+                        published = true;
+                    }
+                    return null;
+                });
+                // listeners are notified once the pending entry has been released
+                if (published) {
+                    registry.notifyPublished(verifiedLicense);
+                }
+            }
+            if (superseded && verifiedLicense != null) {
+                // the license is about to be replaced, until then it is still the one imported last
+                return verifiedLicense;
+            }
+            return registry.get(scopeUid);
+        }
+
+        /**
+         * Marks the license as replaced by licenses which are about to be published.
+         * <p>
+         * Must be invoked while holding the pending entry of the scope, so the license is either published before
+         * or never.
+         *
+         * @return the license itself, to keep it pending until the replacing licenses have been published
+         */
+        PendingLicense supersede() {
+            superseded = true;
+            return this;
+        }
+
+        private LicenseData parseAndAssertScope() {
+            try {
+                LicenseData licenseData = parseLicense(license);
+                if (!scopeUid.equals(licenseData.getScopeId())) {
+                    throw new IllegalArgumentException("License for scope "
+                                                       + licenseData.getScopeId()
+                                                       + " was imported for scope "
+                                                       + scopeUid
+                                                       + ".");
+                }
+                return licenseData;
+            } catch (Exception e) {
+                LOG.log(Level.WARNING, "Failed to verify the lazily imported license of scope " + scopeUid, e);
+                return null;
+            }
+        }
+    }
+
+    LicenseRegistry getRegistry() {
+        return registry;
+    }
+
+    LicenseClock getClock() {
+        return clock;
+    }
+
+    boolean isStillValid(LicenseData scopeLicensedData) {
+        if (scopeLicensedData == null) {
+            return false;
+        }
+        return scopeLicensedData.isValidOn(clock.currentEpochDay());
     }
 }
@@ -0,0 +1,44 @@
+package com.fkrone.likensing.client;
+
+import java.time.Clock;
+
+/**
+ * Supplies the current day which is used to check whether a license is still valid.
+ * <p>
+ * The day is represented as epoch day (see {@link java.time.LocalDate#toEpochDay()}) so that validity checks
+ * boil down to comparing two primitives.
+ */
+@FunctionalInterface
+public interface LicenseClock {
+
+    /**
+     * Returns the current day.
+     *
+     * @return the current day as number of days since 1970-01-01
+     */
+    long currentEpochDay();
+
+    /**
+     * Returns a clock based on the system time in the default time zone.
+     *
+     * @return a clock based on the system time
+     */
+    static LicenseClock systemDefault() {
+        return of(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Returns a license clock based on the given clock.
+     * <p>
+     * The current day is cached and only recomputed once the clock passes a day boundary of the clock's zone.
+     *
+     * @param clock the clock to read the current time from
+     * @return a license clock based on the given clock
+     */
+    static LicenseClock of(Clock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("Provide a valid clock");
+        }
+        return new CachedEpochDayClock(clock);
+    }
+}
@@ -1,16 +1,15 @@
 package com.fkrone.likensing.client;
 
 import java.time.LocalDate;
-import java.util.Set;
 
 /**
  * Represents licensed data parsed from a license file.
  */
 class LicenseData {
 
-    private String scopeId;
-    private Set<String> licensedFeatures;
-    private LocalDate validUntil;
+    private final String scopeId;
+    private final FeatureSet licensedFeatures;
+    private final long validUntilEpochDay;
 
     /**
      * Generates a new representation of a license.
@@ -19,21 +18,54 @@ class LicenseData {
      * @param licensedFeatures set containing the licensed features
      * @param validUntil       the last date the license is valid
      */
-    LicenseData(String scopeId, Set<String> licensedFeatures, LocalDate validUntil) {
+    LicenseData(String scopeId, FeatureSet licensedFeatures, LocalDate validUntil) {
         this.scopeId = scopeId;
         this.licensedFeatures = licensedFeatures;
-        this.validUntil = validUntil;
+        this.validUntilEpochDay = validUntil.toEpochDay();
+    }
+
+    private LicenseData(String scopeId, FeatureSet licensedFeatures, long validUntilEpochDay) {
+        this.scopeId = scopeId;
+        this.licensedFeatures = licensedFeatures;
+        this.validUntilEpochDay = validUntilEpochDay;
+    }
+
+    /**
+     * Returns a copy of this license licensing the given features instead.
+     *
+     * @param licensedFeatures the features to license, which must be equal to the features of this license
+     * @return this license if it already uses the given set, a copy using the given set otherwise
+     */
+    LicenseData withLicensedFeatures(FeatureSet licensedFeatures) {
+        if (this.licensedFeatures == licensedFeatures) {
+            return this;
+        }
+        return new LicenseData(scopeId, licensedFeatures, validUntilEpochDay);
     }
 
     String getScopeId() {
         return scopeId;
     }
 
-    Set<String> getLicensedFeatures() {
+    FeatureSet getLicensedFeatures() {
         return licensedFeatures;
     }
 
     LocalDate getValidUntil() {
-        return validUntil;
+        return LocalDate.ofEpochDay(validUntilEpochDay);
+    }
+
+    long getValidUntilEpochDay() {
+        return validUntilEpochDay;
+    }
+
+    /**
+     * Checks whether the license is still valid on the given day.
+     *
+     * @param epochDay the day to check as epoch day
+     * @return <tt>true</tt> if the license is valid on the given day, <tt>false</tt> otherwise
+     */
+    boolean isValidOn(long epochDay) {
+        return epochDay <= validUntilEpochDay;
     }
 }
@@ -0,0 +1,296 @@
+package com.fkrone.likensing.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads all licenses stored in a directory into a {@link LicenseChecker} and keeps them up to date.
+ * <p>
+ * Each regular file in the directory is expected to contain one base64 encoded license. Hidden files, whose
+ * name starts with a dot, are skipped. Once {@link #watch() watching} the directory, only the files which were
+ * added, changed or removed are processed again. If several files provide a license for the same scope, the most
+ * recently modified one determines the license. Once that file is removed or provides another scope, the latest
+ * of the remaining files for the scope is imported again, and the license of the scope is only removed if no file
+ * provides it anymore. A file which cannot be imported is reported to the
+ * {@link #setFailureHandler(BiConsumer) failure handler} and leaves the previously imported license untouched.
+ * <p>
+ * The files are imported via {@link LicenseChecker#importLicenseFiles(Collection)}, so their licenses are verified
+ * right away, even if the checker uses {@link LicenseVerificationMode#LAZY}.
+ */
+public class LicenseDirectoryLoader implements Closeable {
+
+    private static final Logger LOG = Logger.getLogger(LicenseDirectoryLoader.class.getName());
+
+    private final LicenseChecker licenseChecker;
+    private final Path directory;
+    private final Map<Path, String> scopesByFile = new HashMap<>();
+    private final Map<String, Set<Path>> filesByScope = new HashMap<>();
+    private volatile BiConsumer<Path, Exception> failureHandler =
+            (file, failure) -> LOG.log(Level.WARNING, "Failed to import license from " + file, failure);
+    private WatchService watchService;
+    private Thread watcherThread;
+
+    /**
+     * Creates a new loader which imports the licenses of the given directory into the given checker.
+     *
+     * @param licenseChecker the checker to import the licenses into
+     * @param directory      the directory containing the license files
+     */
+    public LicenseDirectoryLoader(LicenseChecker licenseChecker, Path directory) {
+        if (licenseChecker == null) {
+            throw new IllegalArgumentException("Provide a valid license checker");
+        }
+        if (directory == null || !Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("Provide a valid license directory");
+        }
+        this.licenseChecker = licenseChecker;
+        this.directory = directory.toAbsolutePath();
+    }
+
+    /**
+     * Sets the handler which is notified about license files which cannot be imported.
+     * <p>
+     * By default failures are logged as warning.
+     *
+     * @param failureHandler the handler receiving the license file and the reason why it cannot be imported
+     */
+    public void setFailureHandler(BiConsumer<Path, Exception> failureHandler) {
+        if (failureHandler == null) {
+            throw new IllegalArgumentException("Provide a valid failure handler");
+        }
+        this.failureHandler = failureHandler;
+    }
+
+    /**
+     * Imports all license files currently present in the directory.
+     * <p>
+     * Licenses of files which were imported by a previous load but are gone by now are removed.
+     *
+     * @throws IOException if the directory cannot be listed
+     */
+    public synchronized void load() throws IOException {
+        Set<Path> files = new HashSet<>(scopesByFile.keySet());
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directory)) {
+            for (Path file : directoryStream) {
+                files.add(file);
+            }
+        }
+        reload(files);
+    }
+
+    /**
+     * Starts watching the directory for added, changed and removed license files in a background thread.
+     *
+     * @throws IOException if the directory cannot be watched
+     */
+    public synchronized void watch() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService,
+                           StandardWatchEventKinds.ENTRY_CREATE,
+                           StandardWatchEventKinds.ENTRY_MODIFY,
+                           StandardWatchEventKinds.ENTRY_DELETE);
+        // reflect changes which happened before the watch was registered
+        load();
+
+        WatchService service = watchService;
+        watcherThread = new Thread(() -> processEvents(service), "likensing-directory-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    private void processEvents(WatchService service) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = service.take();
+                processEvents(key);
+                if (!key.reset()) {
+                    LOG.warning("License directory " + directory + " is no longer accessible.");
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // the loader has been closed
+        }
+    }
+
+    private void processEvents(WatchKey key) {
+        Set<Path> changedFiles = new HashSet<>();
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+            } else {
+                changedFiles.add(directory.resolve((Path) event.context()));
+            }
+        }
+
+        try {
+            if (overflow) {
+                load();
+            } else {
+                synchronized (this) {
+                    reload(changedFiles);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            failureHandler.accept(directory, e);
+        }
+    }
+
+    /**
+     * Imports the given files again and removes the licenses of files which no longer exist.
+     * <p>
+     * Scopes which lost one of their files are provided by one of their remaining files again, as the lost file
+     * might have been the one imported last.
+     *
+     * @param files the files to process
+     */
+    private void reload(Collection<Path> files) {
+        Set<Path> importedFiles = new HashSet<>();
+        Set<String> lostScopes = importFiles(files, importedFiles);
+        while (!lostScopes.isEmpty()) {
+            List<Path> remainingFiles = new ArrayList<>();
+            for (String scopeUid : lostScopes) {
+                Path remainingFile = findLatestFile(scopeUid);
+                if (remainingFile == null) {
+                    licenseChecker.removeLicense(scopeUid);
+                } else if (!importedFiles.contains(remainingFile)) {
+                    remainingFiles.add(remainingFile);
+                }
+            }
+            lostScopes = importFiles(remainingFiles, importedFiles);
+        }
+    }
+
+    /**
+     * Imports the given files and forgets the files which no longer exist.
+     * <p>
+     * The files are imported in the order of their modification, so the latest file of a scope is published last.
+     *
+     * @param files         the files to process
+     * @param importedFiles the files imported successfully so far, which is extended by this call
+     * @return the scopes which lost a file providing them
+     */
+    private Set<String> importFiles(Collection<Path> files, Set<Path> importedFiles) {
+        Map<Path, FileTime> modifications = new HashMap<>();
+        Set<String> lostScopes = new HashSet<>();
+        for (Path file : files) {
+            if (isLicenseFile(file)) {
+                try {
+                    // an empty file is most probably still being written, it is processed on its next change
+                    if (Files.size(file) > 0) {
+                        modifications.put(file, Files.getLastModifiedTime(file));
+                    }
+                } catch (IOException e) {
+                    failureHandler.accept(file, e);
+                }
+            } else if (!Files.exists(file) && scopesByFile.containsKey(file)) {
+                lostScopes.add(forgetFile(file));
+            }
+        }
+
+        List<Path> licenseFiles = new ArrayList<>(modifications.keySet());
+        licenseFiles.sort(Comparator.comparing(modifications::get));
+        List<LicenseImportResult> results = licenseChecker.importLicenseFiles(licenseFiles);
+        for (int i = 0; i < results.size(); i++) {
+            LicenseImportResult result = results.get(i);
+            Path file = licenseFiles.get(i);
+            if (result.isSuccessful()) {
+                importedFiles.add(file);
+                String previousScope = scopesByFile.get(file);
+                if (!result.getScopeUid().equals(previousScope)) {
+                    if (previousScope != null) {
+                        lostScopes.add(forgetFile(file));
+                    }
+                    scopesByFile.put(file, result.getScopeUid());
+                    filesByScope.computeIfAbsent(result.getScopeUid(), scopeUid -> new HashSet<>()).add(file);
+                }
+            } else {
+                failureHandler.accept(file, result.getFailure());
+            }
+        }
+        return lostScopes;
+    }
+
+    private String forgetFile(Path file) {
+        String scopeUid = scopesByFile.remove(file);
+        Set<Path> files = filesByScope.get(scopeUid);
+        files.remove(file);
+        if (files.isEmpty()) {
+            filesByScope.remove(scopeUid);
+        }
+        return scopeUid;
+    }
+
+    /**
+     * Returns the most recently modified file which provides the given scope.
+     *
+     * @param scopeUid the uid of the scope to find a file for
+     * @return the latest file of the scope or <tt>null</tt> if no existing file provides the scope
+     */
+    private Path findLatestFile(String scopeUid) {
+        Path latestFile = null;
+        FileTime latestModification = null;
+        for (Path file : filesByScope.getOrDefault(scopeUid, Collections.emptySet())) {
+            try {
+                FileTime modification = Files.getLastModifiedTime(file);
+                if (latestModification == null || modification.compareTo(latestModification) > 0) {
+                    latestFile = file;
+                    latestModification = modification;
+                }
+            } catch (IOException e) {
+                // the file is gone as well, which is processed once its removal is noticed
+            }
+        }
+        return latestFile;
+    }
+
+    private boolean isLicenseFile(Path file) {
+        Path fileName = file.getFileName();
+        return fileName != null && !fileName.toString().startsWith(".") && Files.isRegularFile(file);
+    }
+
+    /**
+     * Stops watching the directory.
+     * <p>
+     * The licenses imported so far remain in the license checker.
+     *
+     * @throws IOException if stopping the watch fails
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService == null) {
+            return;
+        }
+        watchService.close();
+        watchService = null;
+        watcherThread.interrupt();
+        watcherThread = null;
+    }
+}
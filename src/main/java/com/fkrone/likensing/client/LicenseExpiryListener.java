@@ -0,0 +1,29 @@
+package com.fkrone.likensing.client;
+
+import java.time.LocalDate;
+
+/**
+ * Receives notifications about licenses which are about to expire or have expired.
+ * <p>
+ * The listener is invoked on the thread of the {@link LicenseExpiryScheduler}, one notification at a time.
+ *
+ * @see LicenseExpiryScheduler#addListener(LicenseExpiryListener)
+ */
+public interface LicenseExpiryListener {
+
+    /**
+     * Invoked once the license of a scope enters its warning period.
+     *
+     * @param scopeUid   the uid of the scope whose license is about to expire
+     * @param validUntil the last day the license is valid on
+     */
+    void onLicenseExpiring(String scopeUid, LocalDate validUntil);
+
+    /**
+     * Invoked once the license of a scope has expired.
+     *
+     * @param scopeUid   the uid of the scope whose license has expired
+     * @param validUntil the last day the license was valid on
+     */
+    void onLicenseExpired(String scopeUid, LocalDate validUntil);
+}
@@ -0,0 +1,335 @@
+package com.fkrone.likensing.client;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Notifies {@link LicenseExpiryListener listeners} about licenses of a {@link LicenseChecker} which are about to
+ * expire or have expired.
+ * <p>
+ * Each published license is put into an index ordered by the day its next event is due. A single background
+ * thread only looks at the events which are due, so the work done scales with the number of expiry events instead
+ * of the number of scopes. At most one license is scheduled per scope: replacing a license replaces its pending
+ * events and removing it from the checker drops them, so the index never outgrows the number of known scopes.
+ * <p>
+ * Optionally expired licenses are removed from the checker, so {@link LicenseChecker#hasLicense(String)} no
+ * longer reports them.
+ */
+public class LicenseExpiryScheduler implements Closeable {
+
+    private static final Logger LOG = Logger.getLogger(LicenseExpiryScheduler.class.getName());
+
+    private final LicenseRegistry registry;
+    private final LicenseClock clock;
+    private final int warningDays;
+    private final LicenseRegistry.PublishListener publishListener = new LicenseRegistry.PublishListener() {
+        @Override
+        public void onPublish(Collection<LicenseData> licenseData) {
+            schedule(licenseData);
+        }
+
+        @Override
+        public void onRemove(String scopeUid) {
+            unschedule(scopeUid);
+        }
+    };
+    private final NavigableSet<ExpiryEvent> events =
+            new TreeSet<>(Comparator.<ExpiryEvent>comparingLong(event -> event.dueEpochDay)
+                                  .thenComparing(event -> event.scheduledLicense.scopeUid)
+                                  .thenComparing(event -> event.expired));
+    private final Map<String, ScheduledLicense> scheduledLicenses = new HashMap<>();
+    private final List<LicenseExpiryListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean evictExpiredLicenses;
+    private volatile ScheduledExecutorService executor;
+
+    /**
+     * Creates a new scheduler for the licenses of the given checker.
+     * <p>
+     * All licenses known to the checker and all licenses imported from now on are scheduled.
+     *
+     * @param licenseChecker the checker whose licenses are scheduled
+     * @param warningDays    the number of days before the expiry of a license its listeners are warned, 0 disables
+     *                       the warning
+     */
+    public LicenseExpiryScheduler(LicenseChecker licenseChecker, int warningDays) {
+        if (licenseChecker == null) {
+            throw new IllegalArgumentException("Provide a valid license checker");
+        }
+        if (warningDays < 0) {
+            throw new IllegalArgumentException("Provide a warning period of at least 0 days");
+        }
+        this.registry = licenseChecker.getRegistry();
+        this.clock = licenseChecker.getClock();
+        this.warningDays = warningDays;
+
+        registry.addListener(publishListener);
+        schedule(registry.snapshot().values());
+    }
+
+    /**
+     * Registers a listener which is notified about licenses which are about to expire or have expired.
+     *
+     * @param listener the listener to register
+     */
+    public void addListener(LicenseExpiryListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Provide a valid listener");
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Determines whether expired licenses are removed from the checker before their listeners are notified.
+     * <p>
+     * By default expired licenses are kept.
+     *
+     * @param evictExpiredLicenses <tt>true</tt> to remove expired licenses, <tt>false</tt> to keep them
+     */
+    public void setEvictExpiredLicenses(boolean evictExpiredLicenses) {
+        this.evictExpiredLicenses = evictExpiredLicenses;
+    }
+
+    /**
+     * Starts processing due events in a background thread, looking for due events once a minute.
+     */
+    public void start() {
+        start(1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Starts processing due events in a background thread.
+     * <p>
+     * Events of newly published licenses are processed right away, the interval only determines how soon a
+     * change of the current day is noticed.
+     *
+     * @param interval the interval to look for due events in
+     * @param unit     the unit of the interval
+     */
+    public synchronized void start(long interval, TimeUnit unit) {
+        if (interval <= 0 || unit == null) {
+            throw new IllegalArgumentException("Provide a valid interval");
+        }
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "likensing-expiry-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::runDueEvents, 0, interval, unit);
+    }
+
+    /**
+     * Stops processing events and no longer schedules licenses published from now on.
+     */
+    @Override
+    public synchronized void close() {
+        registry.removeListener(publishListener);
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void schedule(Collection<LicenseData> licenseData) {
+        synchronized (events) {
+            for (LicenseData data : licenseData) {
+                schedule(data);
+            }
+        }
+
+        ScheduledExecutorService currentExecutor = executor;
+        if (currentExecutor != null) {
+            try {
+                currentExecutor.execute(this::runDueEvents);
+            } catch (RejectedExecutionException e) {
+                // the scheduler has been closed concurrently
+            }
+        }
+    }
+
+    private void schedule(LicenseData licenseData) {
+        String scopeUid = licenseData.getScopeId();
+        if (registry.get(scopeUid) != licenseData) {
+            // the license has already been replaced or removed, the notification about that change follows
+            return;
+        }
+
+        ScheduledLicense scheduledLicense = scheduledLicenses.get(scopeUid);
+        if (scheduledLicense != null) {
+            if (scheduledLicense.licenseData.getValidUntilEpochDay() == licenseData.getValidUntilEpochDay()) {
+                // the pending events are still due on the same days, so re-importing a license reports it only once
+                scheduledLicense.licenseData = licenseData;
+                return;
+            }
+            unschedule(scheduledLicense);
+        }
+
+        scheduledLicense = new ScheduledLicense(scopeUid, licenseData);
+        // a license is valid until the end of its last day, so it expires on the day after
+        long expiryEpochDay = licenseData.getValidUntilEpochDay() + 1;
+        if (warningDays > 0) {
+            scheduledLicense.warning = new ExpiryEvent(expiryEpochDay - warningDays, scheduledLicense, false);
+            events.add(scheduledLicense.warning);
+        }
+        scheduledLicense.expiry = new ExpiryEvent(expiryEpochDay, scheduledLicense, true);
+        events.add(scheduledLicense.expiry);
+        scheduledLicenses.put(scopeUid, scheduledLicense);
+    }
+
+    private void unschedule(String scopeUid) {
+        synchronized (events) {
+            ScheduledLicense scheduledLicense = scheduledLicenses.get(scopeUid);
+            // the scope may have been licensed again before this notification arrived
+            if (scheduledLicense != null && registry.get(scopeUid) != scheduledLicense.licenseData) {
+                unschedule(scheduledLicense);
+            }
+        }
+    }
+
+    private void unschedule(ScheduledLicense scheduledLicense) {
+        if (scheduledLicense.warning != null) {
+            events.remove(scheduledLicense.warning);
+        }
+        if (scheduledLicense.expiry != null) {
+            events.remove(scheduledLicense.expiry);
+        }
+        scheduledLicenses.remove(scheduledLicense.scopeUid);
+    }
+
+    /**
+     * Returns the number of scopes whose licenses are currently scheduled.
+     *
+     * @return the number of scheduled scopes
+     */
+    int getScheduledScopeCount() {
+        synchronized (events) {
+            return scheduledLicenses.size();
+        }
+    }
+
+    /**
+     * Returns the number of pending warnings and expiries.
+     *
+     * @return the number of pending events
+     */
+    int getPendingEventCount() {
+        synchronized (events) {
+            return events.size();
+        }
+    }
+
+    /**
+     * Notifies the listeners about all events which are due on the current day.
+     */
+    void runDueEvents() {
+        long today = clock.currentEpochDay();
+        List<DueEvent> dueEvents = new ArrayList<>();
+        synchronized (events) {
+            while (!events.isEmpty() && events.first().dueEpochDay <= today) {
+                ExpiryEvent event = events.pollFirst();
+                ScheduledLicense scheduledLicense = event.scheduledLicense;
+                // the scope stays scheduled until its license is replaced or removed, so an expired license
+                // imported again is not reported again
+                if (event.expired) {
+                    scheduledLicense.expiry = null;
+                } else {
+                    scheduledLicense.warning = null;
+                }
+                dueEvents.add(new DueEvent(scheduledLicense.licenseData, event.expired));
+            }
+        }
+
+        for (DueEvent event : dueEvents) {
+            fire(event, today);
+        }
+    }
+
+    private void fire(DueEvent event, long today) {
+        LicenseData licenseData = event.licenseData;
+        if (registry.get(licenseData.getScopeId()) != licenseData) {
+            return;
+        }
+        if (!event.expired && !licenseData.isValidOn(today)) {
+            // the license was published after its warning period, only its expiry is reported
+            return;
+        }
+
+        if (event.expired && evictExpiredLicenses) {
+            registry.remove(licenseData.getScopeId(), licenseData);
+        }
+        for (LicenseExpiryListener listener : listeners) {
+            try {
+                if (event.expired) {
+                    listener.onLicenseExpired(licenseData.getScopeId(), licenseData.getValidUntil());
+                } else {
+                    listener.onLicenseExpiring(licenseData.getScopeId(), licenseData.getValidUntil());
+                }
+            } catch (RuntimeException e) {
+                LOG.log(Level.WARNING, "Failed to notify expiry listener about scope " + licenseData.getScopeId(), e);
+            }
+        }
+
+    }
+
+    /**
+     * Represents the license currently scheduled for a scope along with its pending events.
+     */
+    private static class ScheduledLicense {
+
+        private final String scopeUid;
+        private LicenseData licenseData;
+        private ExpiryEvent warning;
+        private ExpiryEvent expiry;
+
+        ScheduledLicense(String scopeUid, LicenseData licenseData) {
+            this.scopeUid = scopeUid;
+            this.licenseData = licenseData;
+        }
+    }
+
+    /**
+     * Represents a pending warning or expiry of a scheduled license.
+     */
+    private static class ExpiryEvent {
+
+        private final long dueEpochDay;
+        private final ScheduledLicense scheduledLicense;
+        private final boolean expired;
+
+        ExpiryEvent(long dueEpochDay, ScheduledLicense scheduledLicense, boolean expired) {
+            this.dueEpochDay = dueEpochDay;
+            this.scheduledLicense = scheduledLicense;
+            this.expired = expired;
+        }
+    }
+
+    /**
+     * Represents a warning or expiry which is due for the license scheduled at that time.
+     */
+    private static class DueEvent {
+
+        private final LicenseData licenseData;
+        private final boolean expired;
+
+        DueEvent(LicenseData licenseData, boolean expired) {
+            this.licenseData = licenseData;
+            this.expired = expired;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.fkrone.likensing.client;
+
+/**
+ * Represents the outcome of importing a single license as part of a batch.
+ *
+ * @see LicenseChecker#importLicenses(java.util.Collection)
+ */
+public class LicenseImportResult {
+
+    private final String scopeUid;
+    private final LicenseData licenseData;
+    private final Exception failure;
+
+    private LicenseImportResult(String scopeUid, LicenseData licenseData, Exception failure) {
+        this.scopeUid = scopeUid;
+        this.licenseData = licenseData;
+        this.failure = failure;
+    }
+
+    static LicenseImportResult success(LicenseData licenseData) {
+        return new LicenseImportResult(licenseData.getScopeId(), licenseData, null);
+    }
+
+    static LicenseImportResult deferred(String scopeUid) {
+        return new LicenseImportResult(scopeUid, null, null);
+    }
+
+    static LicenseImportResult failure(Exception failure) {
+        return new LicenseImportResult(null, null, failure);
+    }
+
+    /**
+     * Determines whether the license was imported successfully.
+     *
+     * @return <tt>true</tt> if the license was imported, <tt>false</tt> otherwise
+     */
+    public boolean isSuccessful() {
+        return failure == null;
+    }
+
+    /**
+     * Determines whether the verification of the license has been deferred to the first check of its scope.
+     *
+     * @return <tt>true</tt> if the license was imported via {@link LicenseVerificationMode#LAZY} and has not been
+     * verified yet, <tt>false</tt> otherwise
+     */
+    public boolean isDeferred() {
+        return failure == null && licenseData == null;
+    }
+
+    /**
+     * Returns the uid of the scope the imported license is for.
+     *
+     * @return the scope uid of the license or <tt>null</tt> if the import failed
+     */
+    public String getScopeUid() {
+        return scopeUid;
+    }
+
+    /**
+     * Returns the reason why the import failed.
+     * <p>
+     * The exception is the one {@link LicenseChecker#importLicense(String)} would have thrown for the license.
+     *
+     * @return the exception which made the import fail or <tt>null</tt> if the import was successful
+     */
+    public Exception getFailure() {
+        return failure;
+    }
+
+    LicenseData getLicenseData() {
+        return licenseData;
+    }
+}
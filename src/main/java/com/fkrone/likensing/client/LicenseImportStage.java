@@ -0,0 +1,35 @@
+package com.fkrone.likensing.client;
+
+/**
+ * Enumerates the stages of importing a license whose duration is reported to a {@link LicenseMetricsListener}.
+ */
+public enum LicenseImportStage {
+
+    /**
+     * Decoding the base64 encoded license.
+     * <p>
+     * Licenses imported from bytes, buffers, streams or files are decoded while being parsed, so this stage is
+     * only reported for licenses imported as string.
+     */
+    DECODE,
+
+    /**
+     * Parsing the license XML.
+     * <p>
+     * When parsing via {@link LicenseParsingMode#STREAMING}, this includes feeding the licensed properties into
+     * the signature.
+     */
+    PARSE,
+
+    /**
+     * Verifying the signature of the license.
+     * <p>
+     * When parsing via {@link LicenseParsingMode#DOM}, this includes re-serializing the licensed properties.
+     */
+    VERIFY,
+
+    /**
+     * Importing the license as a whole, including looking it up in the cache of already verified licenses.
+     */
+    IMPORT
+}
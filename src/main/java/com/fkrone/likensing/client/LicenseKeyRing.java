@@ -0,0 +1,165 @@
+package com.fkrone.likensing.client;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.SignatureException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Contains the public keys licenses are verified with, indexed by their key id.
+ * <p>
+ * A license names the key it was signed with in the <tt>keyId</tt> attribute of its root element, so it is
+ * verified against exactly this key. Licenses without a key id are verified against the default key, which is
+ * the first key added unless changed explicitly.
+ * <p>
+ * A key ring is immutable, all modifications return a new key ring.
+ */
+class LicenseKeyRing {
+
+    /**
+     * Contains a key ring without any keys.
+     */
+    static final LicenseKeyRing EMPTY = new LicenseKeyRing(Collections.emptyMap(), null);
+
+    private final Map<String, PublicKey> keys;
+    private final String defaultKeyId;
+    private final byte[] fingerprint;
+
+    private LicenseKeyRing(Map<String, PublicKey> keys, String defaultKeyId) {
+        this.keys = keys;
+        this.defaultKeyId = defaultKeyId;
+        this.fingerprint = computeFingerprint(keys, defaultKeyId);
+    }
+
+    /**
+     * Creates a key ring containing only the given key.
+     *
+     * @param publicKey the key to verify licenses with
+     * @return a key ring containing only the given key as default key
+     */
+    static LicenseKeyRing of(PublicKey publicKey) {
+        return EMPTY.withKey(computeKeyId(publicKey), publicKey);
+    }
+
+    /**
+     * Computes the id of the given key, which is the SHA-256 fingerprint of its encoded form as hex string.
+     *
+     * @param publicKey the key to compute the id of
+     * @return the id of the given key
+     */
+    static String computeKeyId(PublicKey publicKey) {
+        StringBuilder keyId = new StringBuilder();
+        for (byte digestByte : sha256().digest(publicKey.getEncoded())) {
+            keyId.append(Character.forDigit((digestByte >> 4) & 0xF, 16))
+                 .append(Character.forDigit(digestByte & 0xF, 16));
+        }
+        return keyId.toString();
+    }
+
+    /**
+     * Returns a key ring which additionally contains the given key.
+     *
+     * @param keyId     the id of the key
+     * @param publicKey the key to add
+     * @return a key ring containing the given key, which is the default key if it is the only key
+     */
+    LicenseKeyRing withKey(String keyId, PublicKey publicKey) {
+        Map<String, PublicKey> modifiedKeys = new TreeMap<>(keys);
+        modifiedKeys.put(keyId, publicKey);
+        return new LicenseKeyRing(Collections.unmodifiableMap(modifiedKeys),
+                                  defaultKeyId == null ? keyId : defaultKeyId);
+    }
+
+    /**
+     * Returns a key ring which no longer contains the given key.
+     *
+     * @param keyId the id of the key to remove
+     * @return a key ring without the given key, which has no default key if the given key was the default key
+     */
+    LicenseKeyRing withoutKey(String keyId) {
+        if (!keys.containsKey(keyId)) {
+            return this;
+        }
+        Map<String, PublicKey> modifiedKeys = new TreeMap<>(keys);
+        modifiedKeys.remove(keyId);
+        return new LicenseKeyRing(Collections.unmodifiableMap(modifiedKeys),
+                                  keyId.equals(defaultKeyId) ? null : defaultKeyId);
+    }
+
+    /**
+     * Returns a key ring which uses the given key as default key.
+     *
+     * @param keyId the id of the key to use for licenses without key id
+     * @return a key ring using the given key as default key
+     */
+    LicenseKeyRing withDefaultKey(String keyId) {
+        if (!keys.containsKey(keyId)) {
+            throw new IllegalArgumentException("Unknown key id: " + keyId);
+        }
+        return new LicenseKeyRing(keys, keyId);
+    }
+
+    /**
+     * Returns the key a license with the given key id has to be verified with.
+     *
+     * @param keyId the key id named by the license or <tt>null</tt> if the license does not name a key
+     * @return the key to verify the license with
+     * @throws SignatureException if no matching key is known
+     */
+    PublicKey resolve(String keyId) throws SignatureException {
+        String effectiveKeyId = keyId == null || keyId.isEmpty() ? defaultKeyId : keyId;
+        PublicKey publicKey = effectiveKeyId == null ? null : keys.get(effectiveKeyId);
+        if (publicKey == null) {
+            throw new SignatureException("No public key known to verify licenses signed with key id: "
+                                         + (effectiveKeyId == null ? "default" : effectiveKeyId));
+        }
+        return publicKey;
+    }
+
+    Set<String> getKeyIds() {
+        return keys.keySet();
+    }
+
+    String getDefaultKeyId() {
+        return defaultKeyId;
+    }
+
+    /**
+     * Returns a fingerprint over all keys and the default key.
+     * <p>
+     * The fingerprint changes whenever a key is added or removed or the default key changes. It is used to make
+     * sure that licenses verified with a previous key ring are not trusted anymore.
+     *
+     * @return the fingerprint of the key ring
+     */
+    byte[] getFingerprint() {
+        return fingerprint.clone();
+    }
+
+    private static byte[] computeFingerprint(Map<String, PublicKey> keys, String defaultKeyId) {
+        MessageDigest digest = sha256();
+        for (Map.Entry<String, PublicKey> key : new TreeMap<>(keys).entrySet()) {
+            digest.update(key.getKey().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(key.getValue().getEncoded());
+            digest.update((byte) 0);
+        }
+        if (defaultKeyId != null) {
+            digest.update(defaultKeyId.getBytes(StandardCharsets.UTF_8));
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.fkrone.likensing.client;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects metrics about the checks and imports performed by a {@link LicenseChecker}.
+ * <p>
+ * Checks are counted per outcome and the durations of import stages are recorded in histograms. All values are
+ * kept in striped counters, so recording does not add contention to the checks. Use {@link #snapshot()} to read
+ * the current values, e.g. to expose them to a monitoring system.
+ *
+ * @see LicenseChecker#setMetricsListener(LicenseMetricsListener)
+ */
+public class LicenseMetrics implements LicenseMetricsListener {
+
+    private final LongAdder[] checks = new LongAdder[LicenseCheckOutcome.values().length];
+    private final LatencyHistogram[] stages = new LatencyHistogram[LicenseImportStage.values().length];
+
+    /**
+     * Creates a new instance without any recorded values.
+     */
+    public LicenseMetrics() {
+        for (int i = 0; i < checks.length; i++) {
+            checks[i] = new LongAdder();
+        }
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    public void onCheck(LicenseCheckOutcome outcome) {
+        checks[outcome.ordinal()].increment();
+    }
+
+    @Override
+    public void onImportStage(LicenseImportStage stage, long durationNanos) {
+        stages[stage.ordinal()].record(durationNanos);
+    }
+
+    /**
+     * Returns the values recorded so far.
+     *
+     * @return a snapshot of the values recorded so far
+     */
+    public LicenseMetricsSnapshot snapshot() {
+        Map<LicenseCheckOutcome, Long> checkCounts = new EnumMap<>(LicenseCheckOutcome.class);
+        for (LicenseCheckOutcome outcome : LicenseCheckOutcome.values()) {
+            checkCounts.put(outcome, checks[outcome.ordinal()].sum());
+        }
+        Map<LicenseImportStage, LicenseMetricsSnapshot.StageLatency> stageLatencies =
+                new EnumMap<>(LicenseImportStage.class);
+        for (LicenseImportStage stage : LicenseImportStage.values()) {
+            LatencyHistogram histogram = stages[stage.ordinal()];
+            stageLatencies.put(stage,
+                               new LicenseMetricsSnapshot.StageLatency(histogram.getBucketCounts(),
+                                                                       histogram.getTotalNanos(),
+                                                                       histogram.getMaxNanos()));
+        }
+        return new LicenseMetricsSnapshot(checkCounts, stageLatencies);
+    }
+}
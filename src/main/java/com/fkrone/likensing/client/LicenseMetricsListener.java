@@ -0,0 +1,28 @@
+package com.fkrone.likensing.client;
+
+/**
+ * Receives metrics about the checks and imports performed by a {@link LicenseChecker}.
+ * <p>
+ * The listener is invoked synchronously on the thread performing the check or import, so implementations have to
+ * be thread safe and should be as cheap as possible. {@link LicenseMetrics} provides an implementation based on
+ * striped counters.
+ *
+ * @see LicenseChecker#setMetricsListener(LicenseMetricsListener)
+ */
+public interface LicenseMetricsListener {
+
+    /**
+     * Invoked for each check whether a feature is licensed.
+     *
+     * @param outcome the outcome of the check
+     */
+    void onCheck(LicenseCheckOutcome outcome);
+
+    /**
+     * Invoked once a stage of importing a license has been completed.
+     *
+     * @param stage         the completed stage
+     * @param durationNanos the duration of the stage in nanoseconds
+     */
+    void onImportStage(LicenseImportStage stage, long durationNanos);
+}
@@ -0,0 +1,143 @@
+package com.fkrone.likensing.client;
+
+import java.util.Map;
+
+/**
+ * Contains the metrics recorded by {@link LicenseMetrics} at a certain point in time.
+ */
+public class LicenseMetricsSnapshot {
+
+    private final Map<LicenseCheckOutcome, Long> checkCounts;
+    private final Map<LicenseImportStage, StageLatency> stageLatencies;
+
+    LicenseMetricsSnapshot(Map<LicenseCheckOutcome, Long> checkCounts,
+                           Map<LicenseImportStage, StageLatency> stageLatencies) {
+        this.checkCounts = checkCounts;
+        this.stageLatencies = stageLatencies;
+    }
+
+    /**
+     * Returns the number of checks with the given outcome.
+     *
+     * @param outcome the outcome to return the number of checks for
+     * @return the number of checks with the given outcome
+     */
+    public long getCheckCount(LicenseCheckOutcome outcome) {
+        return checkCounts.get(outcome);
+    }
+
+    /**
+     * Returns the total number of checks.
+     *
+     * @return the number of checks regardless of their outcome
+     */
+    public long getTotalCheckCount() {
+        return checkCounts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Returns the recorded durations of the given import stage.
+     *
+     * @param stage the stage to return the durations for
+     * @return the recorded durations of the stage
+     */
+    public StageLatency getStageLatency(LicenseImportStage stage) {
+        return stageLatencies.get(stage);
+    }
+
+    /**
+     * Contains the recorded durations of an import stage.
+     */
+    public static class StageLatency {
+
+        private final long[] bucketCounts;
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        StageLatency(long[] bucketCounts, long totalNanos, long maxNanos) {
+            this.bucketCounts = bucketCounts;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            long sum = 0;
+            for (long bucketCount : bucketCounts) {
+                sum += bucketCount;
+            }
+            this.count = sum;
+        }
+
+        /**
+         * Returns how often the stage has been completed.
+         *
+         * @return the number of recorded durations
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the sum of all recorded durations.
+         *
+         * @return the total duration in nanoseconds
+         */
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * Returns the longest recorded duration.
+         *
+         * @return the maximal duration in nanoseconds
+         */
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * Returns the average of all recorded durations.
+         *
+         * @return the average duration in nanoseconds or 0 if nothing has been recorded
+         */
+        public long getMeanNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+
+        /**
+         * Returns an upper bound of the given percentile of all recorded durations.
+         * <p>
+         * As the durations are recorded in buckets of exponentially growing size, the returned value is the upper
+         * bound of the bucket the percentile falls into, capped by the maximal recorded duration.
+         *
+         * @param percentile the percentile to return, between 0 and 100
+         * @return the upper bound of the percentile in nanoseconds or 0 if nothing has been recorded
+         */
+        public long getPercentileNanos(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Provide a percentile between 0 and 100");
+            }
+            long threshold = (long) Math.ceil(count * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < bucketCounts.length; i++) {
+                seen += bucketCounts[i];
+                if (seen >= threshold && seen > 0) {
+                    long upperBound = i >= 63 ? Long.MAX_VALUE : (1L << i) - 1;
+                    return Math.min(upperBound, maxNanos);
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return "count: "
+                   + count
+                   + ", mean: "
+                   + getMeanNanos()
+                   + "ns, p99: "
+                   + getPercentileNanos(99)
+                   + "ns, max: "
+                   + maxNanos
+                   + "ns";
+        }
+    }
+}
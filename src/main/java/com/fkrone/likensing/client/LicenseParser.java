@@ -10,6 +10,7 @@ import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
@@ -21,6 +22,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.CharConversionException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
@@ -33,19 +35,33 @@ import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Base64;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 /**
  * Parses and verifies licenses.
+ * <p>
+ * A parser may be shared between threads. The signature instances and XML factories needed for parsing are
+ * expensive to look up, so each thread creates them once and reuses them for all licenses it parses.
  */
 class LicenseParser {
 
     /**
-     * The public key to check the license's signature against.
+     * The public keys to check the license's signature against unless a key ring is given explicitly.
      */
-    private PublicKey publicKey;
+    private final LicenseKeyRing keyRing;
+
+    /**
+     * Determines how the license XML is processed.
+     */
+    private volatile LicenseParsingMode parsingMode;
+
+    private volatile LicenseMetricsListener metricsListener;
+
+    private final ThreadLocal<Signature> signatures = new ThreadLocal<>();
+    private final ThreadLocal<XMLInputFactory> inputFactories =
+            ThreadLocal.withInitial(StreamingLicenseReader::createInputFactory);
+    private final ThreadLocal<DocumentBuilder> documentBuilders = new ThreadLocal<>();
+    private final ThreadLocal<Transformer> transformers = new ThreadLocal<>();
 
     /**
      * Creates a new instance of the parser.
@@ -53,7 +69,46 @@ class LicenseParser {
      * @param publicKey the public key to verify the signature against
      */
     LicenseParser(PublicKey publicKey) {
-        this.publicKey = publicKey;
+        this(publicKey, LicenseParsingMode.STREAMING);
+    }
+
+    /**
+     * Creates a new instance of the parser using the given parsing mode.
+     *
+     * @param publicKey   the public key to verify the signature against
+     * @param parsingMode the mode determining how the license XML is processed
+     */
+    LicenseParser(PublicKey publicKey, LicenseParsingMode parsingMode) {
+        this(LicenseKeyRing.of(publicKey), parsingMode);
+    }
+
+    /**
+     * Creates a new instance of the parser verifying licenses with the keys of the given key ring.
+     *
+     * @param keyRing     the public keys to verify the signature against
+     * @param parsingMode the mode determining how the license XML is processed
+     */
+    LicenseParser(LicenseKeyRing keyRing, LicenseParsingMode parsingMode) {
+        this.keyRing = keyRing;
+        this.parsingMode = parsingMode;
+    }
+
+    /**
+     * Sets the mode used to parse licenses from now on.
+     *
+     * @param parsingMode the mode determining how the license XML is processed
+     */
+    void setParsingMode(LicenseParsingMode parsingMode) {
+        this.parsingMode = parsingMode;
+    }
+
+    /**
+     * Sets the listener the durations of the parsing stages are reported to.
+     *
+     * @param metricsListener the listener to report to or <tt>null</tt> to disable reporting
+     */
+    void setMetricsListener(LicenseMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
     }
 
     /**
@@ -71,31 +126,227 @@ class LicenseParser {
     LicenseData parseLicense(String license)
             throws NoSuchAlgorithmException, InvalidKeyException, TransformerException, SignatureException,
                    IOException {
-        Document parsedLicense = parseLicenseXML(license);
+        return parseLicense(license, keyRing);
+    }
+
+    /**
+     * Parses a provided license into a {@link LicenseData} and verifies the
+     * signature's validity with the matching key of the given key ring.
+     * <p>
+     * Just like for licenses provided as bytes, line breaks and other characters outside of the base64 alphabet are
+     * ignored, so a license is accepted no matter how it is provided.
+     *
+     * @param license the license to parse
+     * @param keyRing the public keys to verify the signature against
+     * @return the parsed and verified license wrapped in a {@link LicenseData}
+     * @throws NoSuchAlgorithmException if the signature algorithm is not available
+     * @throws InvalidKeyException      if the public key to verify the license is invalid
+     * @throws TransformerException     if parsing the license fails
+     * @throws SignatureException       if a forged license is found or no key matches the license
+     * @throws IOException              if parsing the license fails due to internal handling
+     */
+    LicenseData parseLicense(String license, LicenseKeyRing keyRing)
+            throws NoSuchAlgorithmException, InvalidKeyException, TransformerException, SignatureException,
+                   IOException {
+        LicenseMetricsListener listener = metricsListener;
+        long stageStart = startStage(listener);
+        byte[] decodedLicense = decodeLicense(license);
+        stageStart = completeStage(listener, LicenseImportStage.DECODE, stageStart);
+
+        try (ByteArrayInputStream licenseStream = new ByteArrayInputStream(decodedLicense)) {
+            return parseDecodedLicense(licenseStream, keyRing, listener, stageStart);
+        }
+    }
+
+    /**
+     * Parses a license provided as base64 encoded bytes into a {@link LicenseData} and verifies the
+     * signature's validity with the matching key of the given key ring.
+     * <p>
+     * The bytes are decoded while being parsed, so neither the encoded nor the decoded license is copied as a
+     * whole. Line breaks and other characters outside of the base64 alphabet are ignored.
+     *
+     * @param encodedLicense the stream providing the base64 encoded license
+     * @param keyRing        the public keys to verify the signature against
+     * @return the parsed and verified license wrapped in a {@link LicenseData}
+     * @throws NoSuchAlgorithmException if the signature algorithm is not available
+     * @throws InvalidKeyException      if the public key to verify the license is invalid
+     * @throws TransformerException     if parsing the license fails
+     * @throws SignatureException       if a forged license is found or no key matches the license
+     * @throws IOException              if reading the license fails
+     */
+    LicenseData parseLicense(InputStream encodedLicense, LicenseKeyRing keyRing)
+            throws NoSuchAlgorithmException, InvalidKeyException, TransformerException, SignatureException,
+                   IOException {
+        // decoding happens while parsing, so no separate decode stage is reported
+        LicenseMetricsListener listener = metricsListener;
+        try (InputStream licenseStream = Base64.getMimeDecoder().wrap(encodedLicense)) {
+            return parseDecodedLicense(licenseStream, keyRing, listener, startStage(listener));
+        }
+    }
+
+    /**
+     * Reads the scope uid of the given license without verifying the license.
+     *
+     * @param license the license to read the scope uid of
+     * @return the scope uid the license claims to be for
+     * @throws IOException if reading the license fails due to internal handling
+     */
+    String readScopeUid(String license) throws IOException {
+        try (ByteArrayInputStream licenseStream = new ByteArrayInputStream(decodeLicense(license))) {
+            return StreamingLicenseReader.readScopeUid(inputFactories.get(), licenseStream);
+        }
+    }
+
+    private LicenseData parseDecodedLicense(InputStream decodedLicense,
+                                            LicenseKeyRing keyRing,
+                                            LicenseMetricsListener listener,
+                                            long stageStart)
+            throws NoSuchAlgorithmException, InvalidKeyException, TransformerException, SignatureException,
+                   IOException {
+        if (parsingMode == LicenseParsingMode.DOM) {
+            return parseLicenseDocument(decodedLicense, keyRing, listener, stageStart);
+        }
+        return parseLicenseStream(decodedLicense, keyRing, listener, stageStart);
+    }
+
+    /**
+     * Parses the license in a single pass while feeding the licensed properties into the signature.
+     *
+     * @param decodedLicense the stream providing the decoded license
+     * @param keyRing        the public keys to verify the signature against
+     * @param listener       the listener to report the stages to, may be <tt>null</tt> if metrics are disabled
+     * @param stageStart     the time parsing started at as returned by {@link System#nanoTime()}
+     * @return the parsed and verified license wrapped in a {@link LicenseData}
+     * @throws NoSuchAlgorithmException if the signature algorithm is not available
+     * @throws InvalidKeyException      if the public key to verify the license is invalid
+     * @throws SignatureException       if a forged license is found
+     * @throws IOException              if parsing the license fails due to internal handling
+     */
+    private LicenseData parseLicenseStream(InputStream decodedLicense,
+                                           LicenseKeyRing keyRing,
+                                           LicenseMetricsListener listener,
+                                           long stageStart)
+            throws NoSuchAlgorithmException, InvalidKeyException, SignatureException, IOException {
+        StreamingLicenseReader reader = new StreamingLicenseReader();
+        try {
+            reader.read(inputFactories.get(), decodedLicense, keyId -> obtainSignature(keyRing.resolve(keyId)));
+        } catch (SignatureException e) {
+            throw new SignatureException("Forged license found!", e);
+        }
+        reader.assertLicensedPropertiesFound();
+        stageStart = completeStage(listener, LicenseImportStage.PARSE, stageStart);
+
+        verifySignature(reader.getSignature(), reader.getSignKey());
+        completeStage(listener, LicenseImportStage.VERIFY, stageStart);
+
+        return createLicenseData(reader.getScopeUid(), parseLong(reader.getValidUntil()), reader.getFeatures());
+    }
+
+    /**
+     * Parses the license into a DOM and verifies the signature against the re-serialized licensed properties.
+     *
+     * @param decodedLicense the stream providing the decoded license
+     * @param keyRing        the public keys to verify the signature against
+     * @param listener       the listener to report the stages to, may be <tt>null</tt> if metrics are disabled
+     * @param stageStart     the time parsing started at as returned by {@link System#nanoTime()}
+     * @return the parsed and verified license wrapped in a {@link LicenseData}
+     * @throws NoSuchAlgorithmException if the signature algorithm is not available
+     * @throws InvalidKeyException      if the public key to verify the license is invalid
+     * @throws TransformerException     if parsing the license fails
+     * @throws SignatureException       if a forged license is found
+     * @throws IOException              if parsing the license fails due to internal handling
+     */
+    private LicenseData parseLicenseDocument(InputStream decodedLicense,
+                                             LicenseKeyRing keyRing,
+                                             LicenseMetricsListener listener,
+                                             long stageStart)
+            throws NoSuchAlgorithmException, InvalidKeyException, TransformerException, SignatureException,
+                   IOException {
+        Document parsedLicense = parseLicenseXML(decodedLicense);
         Element rootElement = parsedLicense.getDocumentElement();
         Node licensedProperties = querySingleNode(rootElement, "licensedProperties");
         String signKeyAsString = queryTextNode(rootElement, "signKey");
+        stageStart = completeStage(listener, LicenseImportStage.PARSE, stageStart);
+
+        Signature signature;
         try {
-            Signature signature = Signature.getInstance("SHA256withRSA");
-            signature.initVerify(publicKey);
+            signature = obtainSignature(keyRing.resolve(rootElement.getAttribute("keyId")));
             signature.update(nodeToBytes(licensedProperties));
-            if (!signature.verify(decodeBase64(signKeyAsString))) {
-                throw new SecurityException("Sign key does not match license.");
-            }
         } catch (SignatureException e) {
             throw new SignatureException("Forged license found!", e);
         }
+        verifySignature(signature, signKeyAsString);
+        completeStage(listener, LicenseImportStage.VERIFY, stageStart);
 
         String scopeId = queryTextNode(licensedProperties, "scopeUid");
         long validUntilTimestamp = queryLongNode(licensedProperties, "validUntil");
-        LocalDate validUntil = Instant.ofEpochMilli(validUntilTimestamp).atZone(ZoneId.systemDefault()).toLocalDate();
-
         Node licensedFeaturesNode = querySingleNode(licensedProperties, "licensedFeatures");
 
-        Set<String> licensedFeatures = new HashSet<>();
-        queryTextNodeListContent(licensedFeaturesNode, "feature").forEach(licensedFeatures::add);
+        return createLicenseData(scopeId,
+                                 validUntilTimestamp,
+                                 queryTextNodeListContent(licensedFeaturesNode, "feature"));
+    }
+
+    private long startStage(LicenseMetricsListener listener) {
+        return listener == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Reports the duration of a completed import stage to the given listener.
+     *
+     * @param listener   the listener to report to, may be <tt>null</tt> if metrics are disabled
+     * @param stage      the completed stage
+     * @param stageStart the time the stage started at as returned by {@link System#nanoTime()}
+     * @return the time the stage completed at, which is the start of the next stage
+     */
+    private long completeStage(LicenseMetricsListener listener, LicenseImportStage stage, long stageStart) {
+        if (listener == null) {
+            return 0;
+        }
+        long stageEnd = System.nanoTime();
+        listener.onImportStage(stage, stageEnd - stageStart);
+        return stageEnd;
+    }
+
+    /**
+     * Returns the signature instance of the current thread initialized to verify a license.
+     *
+     * @param publicKey the public key to verify the license with
+     * @return the signature of the current thread ready to be fed with the licensed properties
+     * @throws NoSuchAlgorithmException if the signature algorithm is not available
+     * @throws InvalidKeyException      if the public key to verify the license is invalid
+     */
+    private Signature obtainSignature(PublicKey publicKey) throws NoSuchAlgorithmException, InvalidKeyException {
+        Signature signature = signatures.get();
+        if (signature == null) {
+            signature = Signature.getInstance("SHA256withRSA");
+            signatures.set(signature);
+        }
+        // initializing also resets any state left over by a previously failed verification
+        signature.initVerify(publicKey);
+        return signature;
+    }
+
+    /**
+     * Verifies the signature which was fed with the licensed properties against the sign key of the license.
+     *
+     * @param signature       the signature fed with the licensed properties
+     * @param signKeyAsString the base64 encoded sign key of the license
+     * @throws SignatureException if a forged license is found
+     */
+    private void verifySignature(Signature signature, String signKeyAsString) throws SignatureException {
+        try {
+            if (!signature.verify(decodeBase64(signKeyAsString))) {
+                throw new SecurityException("Sign key does not match license.");
+            }
+        } catch (SignatureException e) {
+            throw new SignatureException("Forged license found!", e);
+        }
+    }
 
-        return new LicenseData(scopeId, licensedFeatures, validUntil);
+    private LicenseData createLicenseData(String scopeId, long validUntilTimestamp, List<String> features) {
+        LocalDate validUntil = Instant.ofEpochMilli(validUntilTimestamp).atZone(ZoneId.systemDefault()).toLocalDate();
+        return new LicenseData(scopeId, FeatureSet.of(features), validUntil);
     }
 
     /**
@@ -139,7 +390,16 @@ class LicenseParser {
      * cannot be parsed
      */
     private long queryLongNode(Node node, String elementTag) {
-        String nodeText = queryTextNode(node, elementTag);
+        return parseLong(queryTextNode(node, elementTag));
+    }
+
+    /**
+     * Parses the given text as long.
+     *
+     * @param nodeText the text to parse
+     * @return the text as long or 0 if the text cannot be parsed
+     */
+    private long parseLong(String nodeText) {
         try {
             return Long.parseLong(nodeText);
         } catch (NumberFormatException e) {
@@ -184,18 +444,32 @@ class LicenseParser {
      * @throws TransformerException if the transformation process fails
      * @throws IOException          if the internal handling of the node fails
      */
-    private byte[] nodeToBytes(Node node) throws TransformerException, IOException {
+    byte[] nodeToBytes(Node node) throws TransformerException, IOException {
         ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
         try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(byteArrayOutputStream))) {
+            obtainTransformer().transform(new DOMSource(node), new StreamResult(writer));
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    /**
+     * Returns the transformer of the current thread which is used to serialize the licensed properties.
+     *
+     * @return the transformer of the current thread
+     * @throws TransformerException if the transformer cannot be created
+     */
+    private Transformer obtainTransformer() throws TransformerException {
+        Transformer transformer = transformers.get();
+        if (transformer == null) {
             TransformerFactory factory = TransformerFactory.newInstance();
             factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-            Transformer transformer = factory.newTransformer();
+            transformer = factory.newTransformer();
             transformer.setOutputProperty(OutputKeys.ENCODING, StandardCharsets.UTF_8.name());
             transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
             transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.transform(new DOMSource(node), new StreamResult(writer));
+            transformers.set(transformer);
         }
-        return byteArrayOutputStream.toByteArray();
+        return transformer;
     }
 
     /**
@@ -224,18 +498,57 @@ class LicenseParser {
      * further processed.
      * @throws IOException if internal handling of the license fails
      */
-    private Document parseLicenseXML(String license) throws IOException {
-        byte[] decodedLicense = decodeBase64(license);
-        try (ByteArrayInputStream licenseStream = new ByteArrayInputStream(decodedLicense)) {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            return builder.parse(licenseStream);
+    Document parseLicenseXML(String license) throws IOException {
+        try (ByteArrayInputStream licenseStream = new ByteArrayInputStream(decodeLicense(license))) {
+            return parseLicenseXML(licenseStream);
+        }
+    }
+
+    /**
+     * Parses the given decoded license into an {@link Document} element
+     * which could be further queried.
+     *
+     * @param decodedLicense the stream providing the decoded license to parse
+     * @return the license parsed in a Document which could be
+     * further processed.
+     * @throws IOException if internal handling of the license fails
+     */
+    private Document parseLicenseXML(InputStream decodedLicense) throws IOException {
+        try {
+            return obtainDocumentBuilder().parse(decodedLicense);
         } catch (ParserConfigurationException | SAXException | CharConversionException e) {
             throw new IllegalArgumentException("Failed to parse provided license.", e);
         }
     }
 
-    private byte[] decodeBase64(String textToDecode) {
+    /**
+     * Returns the document builder of the current thread which is used to parse licenses.
+     *
+     * @return the document builder of the current thread, reset to its initial state
+     * @throws ParserConfigurationException if the document builder cannot be created
+     */
+    private DocumentBuilder obtainDocumentBuilder() throws ParserConfigurationException {
+        DocumentBuilder builder = documentBuilders.get();
+        if (builder == null) {
+            builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            documentBuilders.set(builder);
+        } else {
+            builder.reset();
+        }
+        return builder;
+    }
+
+    /**
+     * Decodes a base64 encoded license the same way licenses provided as bytes are decoded.
+     *
+     * @param license the base64 encoded license
+     * @return the decoded license
+     */
+    private byte[] decodeLicense(String license) {
+        return Base64.getMimeDecoder().decode(license);
+    }
+
+    byte[] decodeBase64(String textToDecode) {
         return Base64.getDecoder().decode(textToDecode);
     }
 }
@@ -0,0 +1,29 @@
+package com.fkrone.likensing.client;
+
+/**
+ * Determines how licenses are parsed and verified.
+ */
+public enum LicenseParsingMode {
+
+    /**
+     * Reads the license in a single pass and feeds the licensed properties into the signature while reading.
+     * <p>
+     * The licensed properties are verified in the canonical form licenses are signed in, which is independent of
+     * the Java version: the properties element as it appears within the license, but with its attributes in the
+     * order of their names, empty elements in their short form <tt>&lt;x/&gt;</tt>, text and attribute values
+     * escaped again, and followed by a line break. Apart from the verification of the signature, licenses are
+     * accepted and rejected just like via {@link #DOM}, except that document type declarations are not processed,
+     * so licenses relying on entities declared there are rejected.
+     */
+    STREAMING,
+
+    /**
+     * Parses the license into a DOM and re-serializes the licensed properties via a
+     * {@link javax.xml.transform.Transformer} to verify them.
+     * <p>
+     * The transformer of Java 8 produces the canonical form described at {@link #STREAMING}. Later versions indent
+     * the serialized properties, so licenses in the canonical form are rejected there. Use this mode only if
+     * licenses have to be verified exactly like by the transformer of the running Java version.
+     */
+    DOM
+}
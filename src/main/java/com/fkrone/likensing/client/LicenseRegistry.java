@@ -0,0 +1,350 @@
+package com.fkrone.likensing.client;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the verified licenses of a {@link LicenseChecker}.
+ * <p>
+ * The licenses are kept in an immutable snapshot. Readers always work on the snapshot which was current when
+ * they started, so a lookup never blocks and never allocates. Writers derive a new snapshot from the current one
+ * and swap it in atomically. As the snapshot is a {@link PersistentLicenseMap}, deriving it only copies the parts
+ * affected by the change, so a write costs time proportional to the number of changed licenses.
+ * <p>
+ * Components which need to react on new licenses, like the {@link LicenseExpiryScheduler}, can register a
+ * {@link PublishListener}. Lookups are not affected by listeners at all.
+ * <p>
+ * Scopes which are checked repeatedly can obtain a {@link ScopeSlot}. A slot always holds the current license of
+ * its scope, so reading it replaces the lookup in the snapshot. Slots are only referenced weakly and are dropped
+ * once no {@link ScopeHandle} uses them anymore.
+ * <p>
+ * Via {@link LicenseStorageMode#COMPACT} identical feature sets are shared between all licenses published from
+ * then on.
+ */
+class LicenseRegistry {
+
+    private final AtomicReference<PersistentLicenseMap> snapshot = new AtomicReference<>(PersistentLicenseMap.EMPTY);
+    private final List<PublishListener> listeners = new CopyOnWriteArrayList<>();
+    private final ConcurrentMap<String, SlotReference> slots = new ConcurrentHashMap<>();
+    private final ReferenceQueue<ScopeSlot> releasedSlots = new ReferenceQueue<>();
+    private final ConcurrentMap<FeatureSet, FeatureSet> sharedFeatureSets = new ConcurrentHashMap<>();
+    private volatile LicenseStorageMode storageMode = LicenseStorageMode.STANDARD;
+
+    /**
+     * Returns the license currently known for the given scope uid.
+     *
+     * @param scopeUid the uid of the scope to look up
+     * @return the license of the scope or <tt>null</tt> if no license is known
+     */
+    LicenseData get(String scopeUid) {
+        return snapshot.get().get(scopeUid);
+    }
+
+    /**
+     * Returns the current snapshot of all known licenses.
+     *
+     * @return an unmodifiable map containing all known licenses by their scope uid
+     */
+    Map<String, LicenseData> snapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Sets how licenses published from now on are kept.
+     * <p>
+     * Known licenses are kept as they are, so they stay the same instances for everyone holding them.
+     *
+     * @param storageMode the mode to keep licenses in
+     */
+    void setStorageMode(LicenseStorageMode storageMode) {
+        this.storageMode = storageMode;
+        if (storageMode != LicenseStorageMode.COMPACT) {
+            sharedFeatureSets.clear();
+        }
+    }
+
+    /**
+     * Returns the given license using the shared instance of its feature set if licenses are kept compact.
+     * <p>
+     * A license which already uses the shared instance is returned as it is. So callers remembering licenses, like
+     * the verification cache, should remember the returned license to publish the very same instance again later.
+     *
+     * @param licenseData the license about to be published
+     * @return the license to publish instead
+     */
+    LicenseData share(LicenseData licenseData) {
+        if (storageMode != LicenseStorageMode.COMPACT) {
+            return licenseData;
+        }
+        FeatureSet licensedFeatures = licenseData.getLicensedFeatures();
+        FeatureSet sharedFeatures = sharedFeatureSets.putIfAbsent(licensedFeatures, licensedFeatures);
+        return licenseData.withLicensedFeatures(sharedFeatures == null ? licensedFeatures : sharedFeatures);
+    }
+
+    /**
+     * Adds or replaces the license of its scope.
+     *
+     * @param licenseData the license to publish
+     */
+    void publish(LicenseData licenseData) {
+        LicenseData sharedLicenseData = share(licenseData);
+        publishSilently(sharedLicenseData);
+        notifyPublished(sharedLicenseData);
+    }
+
+    /**
+     * Adds or replaces the license of its scope without notifying the listeners.
+     * <p>
+     * Callers changing the registry while holding a lock announce the change via
+     * {@link #notifyPublished(LicenseData)} once they released it, so listeners never run while the lock is held.
+     * The license is published as it is, so it should have been obtained via {@link #share(LicenseData)}.
+     *
+     * @param licenseData the license to publish
+     */
+    void publishSilently(LicenseData licenseData) {
+        snapshot.updateAndGet(licenses -> licenses.with(licenseData));
+        refreshSlot(licenseData.getScopeId());
+    }
+
+    /**
+     * Notifies the listeners about a license published via {@link #publishSilently(LicenseData)}.
+     *
+     * @param licenseData the published license
+     */
+    void notifyPublished(LicenseData licenseData) {
+        notifyListeners(Collections.singletonList(licenseData));
+    }
+
+    /**
+     * Adds or replaces all given licenses in one atomic step.
+     *
+     * @param licenseData the licenses to publish
+     * @return the licenses as they were published, which differ from the given ones if feature sets are shared
+     */
+    List<LicenseData> publishAll(Collection<LicenseData> licenseData) {
+        if (licenseData.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<LicenseData> sharedLicenseData = new ArrayList<>(licenseData.size());
+        licenseData.forEach(data -> sharedLicenseData.add(share(data)));
+        snapshot.updateAndGet(licenses -> {
+            PersistentLicenseMap modified = licenses;
+            for (LicenseData data : sharedLicenseData) {
+                modified = modified.with(data);
+            }
+            return modified;
+        });
+        sharedLicenseData.forEach(data -> refreshSlot(data.getScopeId()));
+        notifyListeners(sharedLicenseData);
+        return sharedLicenseData;
+    }
+
+    /**
+     * Removes the license of the given scope.
+     *
+     * @param scopeUid the uid of the scope to remove
+     */
+    void remove(String scopeUid) {
+        if (removeSilently(scopeUid)) {
+            notifyRemoved(scopeUid);
+        }
+    }
+
+    /**
+     * Removes the license of the given scope without notifying the listeners.
+     * <p>
+     * Like for {@link #publishSilently(LicenseData)}, the caller announces the removal via
+     * {@link #notifyRemoved(String)} once it released its locks.
+     *
+     * @param scopeUid the uid of the scope to remove
+     * @return <tt>true</tt> if a license was removed, <tt>false</tt> if no license was known for the scope
+     */
+    boolean removeSilently(String scopeUid) {
+        PersistentLicenseMap previous = snapshot.getAndUpdate(licenses -> licenses.without(scopeUid));
+        if (!previous.containsKey(scopeUid)) {
+            return false;
+        }
+        refreshSlot(scopeUid);
+        return true;
+    }
+
+    /**
+     * Removes the license of the given scope if it is still the given license.
+     *
+     * @param scopeUid    the uid of the scope to remove
+     * @param licenseData the license expected to be known for the scope
+     * @return <tt>true</tt> if the license was removed, <tt>false</tt> if another or no license is known
+     */
+    boolean remove(String scopeUid, LicenseData licenseData) {
+        PersistentLicenseMap previous = snapshot.getAndUpdate(licenses -> {
+            if (licenses.get(scopeUid) != licenseData) {
+                return licenses;
+            }
+            return licenses.without(scopeUid);
+        });
+        if (previous.get(scopeUid) != licenseData) {
+            return false;
+        }
+        refreshSlot(scopeUid);
+        notifyRemoved(scopeUid);
+        return true;
+    }
+
+    /**
+     * Returns the slot holding the current license of the given scope.
+     * <p>
+     * All callers obtaining a slot for the same scope share it as long as one of them still references it.
+     *
+     * @param scopeUid the uid of the scope to obtain the slot for
+     * @return the slot of the scope
+     */
+    ScopeSlot obtainSlot(String scopeUid) {
+        purgeReleasedSlots();
+        while (true) {
+            SlotReference reference = slots.get(scopeUid);
+            ScopeSlot slot = reference == null ? null : reference.get();
+            if (slot != null) {
+                return slot;
+            }
+
+            ScopeSlot newSlot = new ScopeSlot();
+            SlotReference newReference = new SlotReference(scopeUid, newSlot, releasedSlots);
+            boolean registered = reference == null ?
+                                 slots.putIfAbsent(scopeUid, newReference) == null :
+                                 slots.replace(scopeUid, reference, newReference);
+            if (registered) {
+                // writers which swapped the snapshot before the slot was registered have not refreshed it
+                refreshSlot(scopeUid, newSlot);
+                return newSlot;
+            }
+        }
+    }
+
+    private void purgeReleasedSlots() {
+        SlotReference reference;
+        while ((reference = (SlotReference) releasedSlots.poll()) != null) {
+            slots.remove(reference.scopeUid, reference);
+        }
+    }
+
+    private void refreshSlot(String scopeUid) {
+        SlotReference reference = slots.get(scopeUid);
+        ScopeSlot slot = reference == null ? null : reference.get();
+        if (slot != null) {
+            refreshSlot(scopeUid, slot);
+        }
+    }
+
+    /**
+     * Copies the license of the given scope from the current snapshot into its slot.
+     * <p>
+     * Concurrent writers refresh the slot one after another and each one reads the snapshot only after its own
+     * change became visible. So the last refresh always copies the license of the latest snapshot, no matter in
+     * which order the writers swapped their snapshots.
+     *
+     * @param scopeUid the uid of the scope of the slot
+     * @param slot     the slot to refresh
+     */
+    private void refreshSlot(String scopeUid, ScopeSlot slot) {
+        synchronized (slot) {
+            slot.licenseData = snapshot.get().get(scopeUid);
+        }
+    }
+
+    /**
+     * Registers a listener which is notified about all licenses published or removed from now on.
+     *
+     * @param listener the listener to register
+     */
+    void addListener(PublishListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters the given listener.
+     *
+     * @param listener the listener to unregister
+     */
+    void removeListener(PublishListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyListeners(Collection<LicenseData> licenseData) {
+        for (PublishListener listener : listeners) {
+            listener.onPublish(licenseData);
+        }
+    }
+
+    /**
+     * Notifies the listeners about the removal of the license of the given scope, e.g. via
+     * {@link #removeSilently(String)}.
+     *
+     * @param scopeUid the uid of the scope whose license has been removed
+     */
+    void notifyRemoved(String scopeUid) {
+        for (PublishListener listener : listeners) {
+            listener.onRemove(scopeUid);
+        }
+    }
+
+    /**
+     * Holds the current license of a single scope.
+     */
+    static final class ScopeSlot {
+
+        private volatile LicenseData licenseData;
+
+        /**
+         * Returns the license currently known for the scope of the slot.
+         *
+         * @return the license of the scope or <tt>null</tt> if no license is known
+         */
+        LicenseData get() {
+            return licenseData;
+        }
+    }
+
+    private static class SlotReference extends WeakReference<ScopeSlot> {
+
+        private final String scopeUid;
+
+        SlotReference(String scopeUid, ScopeSlot slot, ReferenceQueue<ScopeSlot> queue) {
+            super(slot, queue);
+            this.scopeUid = scopeUid;
+        }
+    }
+
+    /**
+     * Gets notified once licenses have been published or removed.
+     * <p>
+     * Notifications of concurrent writers may arrive in a different order than the writers changed the registry,
+     * so listeners should look up the current license of a scope via {@link #get(String)}.
+     */
+    @FunctionalInterface
+    interface PublishListener {
+
+        /**
+         * Invoked on the publishing thread after the given licenses became visible.
+         *
+         * @param licenseData the published licenses
+         */
+        void onPublish(Collection<LicenseData> licenseData);
+
+        /**
+         * Invoked on the removing thread after the license of the given scope has been removed.
+         *
+         * @param scopeUid the uid of the scope whose license has been removed
+         */
+        default void onRemove(String scopeUid) {
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.fkrone.likensing.client;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads and writes snapshots of verified licenses.
+ * <p>
+ * A snapshot stores each verified license along with the digest identifying the license it was parsed from (see
+ * {@link VerifiedLicenseCache#computeKey(LicenseKeyRing, String)}). Loading a snapshot therefore needs neither XML
+ * parsing nor signature verification. As the digest covers the keys the license was verified with, changing the
+ * keys of a checker invalidates its snapshot. The whole file is protected by a HMAC, a snapshot which has been
+ * tampered with or is corrupt is ignored entirely.
+ */
+class LicenseSnapshot {
+
+    private static final Logger LOG = Logger.getLogger(LicenseSnapshot.class.getName());
+
+    private static final int MAGIC = 0x4C4B534E;
+    private static final int VERSION = 1;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int MAC_LENGTH = 32;
+
+    private LicenseSnapshot() {
+    }
+
+    /**
+     * Reads the verified licenses stored in the given snapshot.
+     *
+     * @param file the snapshot file to read
+     * @param key  the key the snapshot was protected with
+     * @return the verified licenses by the digest of their license or an empty map if the snapshot does not exist
+     * or cannot be trusted
+     */
+    static Map<ByteBuffer, LicenseData> read(Path file, byte[] key) {
+        if (!Files.isRegularFile(file)) {
+            return Collections.emptyMap();
+        }
+        try {
+            byte[] content = Files.readAllBytes(file);
+            if (content.length < MAC_LENGTH
+                || !MessageDigest.isEqual(computeMac(key, content, content.length - MAC_LENGTH),
+                                          Arrays.copyOfRange(content, content.length - MAC_LENGTH, content.length))) {
+                LOG.warning("Ignoring license snapshot " + file + " as its integrity cannot be verified.");
+                return Collections.emptyMap();
+            }
+            return readEntries(new DataInputStream(new ByteArrayInputStream(content,
+                                                                            0,
+                                                                            content.length - MAC_LENGTH)));
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            LOG.log(Level.WARNING, "Ignoring license snapshot " + file + " as it cannot be read.", e);
+            return Collections.emptyMap();
+        }
+    }
+
+    private static Map<ByteBuffer, LicenseData> readEntries(DataInputStream input) throws IOException {
+        if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+            throw new IOException("Unknown snapshot format.");
+        }
+        int count = input.readInt();
+        Map<ByteBuffer, LicenseData> licenses = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            byte[] digest = new byte[input.readUnsignedByte()];
+            input.readFully(digest);
+            String scopeId = input.readUTF();
+            long validUntilEpochDay = input.readLong();
+            int featureCount = input.readInt();
+            List<String> features = new ArrayList<>(featureCount);
+            for (int j = 0; j < featureCount; j++) {
+                features.add(input.readUTF());
+            }
+            LocalDate validUntil = LocalDate.ofEpochDay(validUntilEpochDay);
+            licenses.put(ByteBuffer.wrap(digest), new LicenseData(scopeId, FeatureSet.of(features), validUntil));
+        }
+        if (input.read() != -1) {
+            throw new IOException("Unexpected data after the last license.");
+        }
+        return licenses;
+    }
+
+    /**
+     * Writes the given verified licenses into a snapshot.
+     * <p>
+     * The snapshot is written into a temporary file first which then replaces the given file, so readers never
+     * see a partially written snapshot.
+     *
+     * @param file     the snapshot file to write
+     * @param key      the key to protect the snapshot with
+     * @param licenses the verified licenses by the digest of their license
+     * @throws IOException if writing the snapshot fails
+     */
+    static void write(Path file, byte[] key, Map<ByteBuffer, LicenseData> licenses) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(content)) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(licenses.size());
+            for (Map.Entry<ByteBuffer, LicenseData> license : licenses.entrySet()) {
+                writeEntry(output, license.getKey(), license.getValue());
+            }
+        }
+
+        try {
+            content.write(computeMac(key, content.toByteArray(), content.size()));
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to protect license snapshot.", e);
+        }
+
+        Path absoluteFile = file.toAbsolutePath();
+        Path temporaryFile =
+                Files.createTempFile(absoluteFile.getParent(), absoluteFile.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporaryFile, content.toByteArray());
+            Files.move(temporaryFile,
+                       absoluteFile,
+                       StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private static void writeEntry(DataOutputStream output, ByteBuffer digest, LicenseData licenseData)
+            throws IOException {
+        output.writeByte(digest.remaining());
+        output.write(digest.array(), digest.arrayOffset() + digest.position(), digest.remaining());
+        output.writeUTF(licenseData.getScopeId());
+        output.writeLong(licenseData.getValidUntilEpochDay());
+        Set<String> features = licenseData.getLicensedFeatures().getNames();
+        output.writeInt(features.size());
+        for (String feature : features) {
+            output.writeUTF(feature);
+        }
+    }
+
+    private static byte[] computeMac(byte[] key, byte[] content, int length) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(MAC_ALGORITHM);
+        mac.init(new SecretKeySpec(key, MAC_ALGORITHM));
+        mac.update(content, 0, length);
+        return mac.doFinal();
+    }
+}
@@ -0,0 +1,21 @@
+package com.fkrone.likensing.client;
+
+/**
+ * Determines how the verified licenses of a {@link LicenseChecker} are kept in memory.
+ */
+public enum LicenseStorageMode {
+
+    /**
+     * Keeps the features of each license in a set of its own.
+     */
+    STANDARD,
+
+    /**
+     * Shares identical feature sets between all licenses.
+     * <p>
+     * This considerably reduces the memory used per scope if many scopes are licensed for the same features,
+     * e.g. in multi-tenant deployments with a few editions of a product. Each distinct feature set is kept as long
+     * as the mode is used, so it is not suited if almost every scope is licensed for features of its own.
+     */
+    COMPACT
+}
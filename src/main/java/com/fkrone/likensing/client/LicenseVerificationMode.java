@@ -0,0 +1,27 @@
+package com.fkrone.likensing.client;
+
+/**
+ * Determines when imported licenses are parsed and verified.
+ */
+public enum LicenseVerificationMode {
+
+    /**
+     * Parses and verifies each license while importing it.
+     * <p>
+     * A forged license is rejected by the import itself.
+     */
+    EAGER,
+
+    /**
+     * Only extracts the scope uid of each license while importing it and verifies the license on the first check
+     * of its scope.
+     * <p>
+     * This speeds up the startup if many scopes are never checked. The previous license of a scope stays in place
+     * until the imported license has been verified. A forged license is only reported to the log once its scope is
+     * checked and leaves the previous license of its scope untouched.
+     * <p>
+     * Only licenses imported as string are verified lazily. Licenses imported as bytes, buffers, streams or files,
+     * including the ones loaded by a {@link LicenseDirectoryLoader}, are always verified right away.
+     */
+    LAZY
+}
@@ -0,0 +1,364 @@
+package com.fkrone.likensing.client;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Holds licenses by their scope uid in an immutable hash array mapped trie.
+ * <p>
+ * Each node of the trie consumes five bits of the hash of a scope uid and only has slots for the children which
+ * are actually present, marked in a bitmap. Adding or removing a license copies the nodes on the path to the
+ * license, i.e. at most seven small arrays, and shares all other nodes with the previous map. So the cost of an
+ * update depends on the number of changed licenses instead of the number of all known licenses. Licenses are
+ * stored in the nodes directly, no entry is allocated per license.
+ */
+final class PersistentLicenseMap extends AbstractMap<String, LicenseData> {
+
+    /**
+     * Contains the map without any license.
+     */
+    static final PersistentLicenseMap EMPTY = new PersistentLicenseMap(new BitmapNode(0, new Object[0]), 0);
+
+    private static final int BITS_PER_LEVEL = 5;
+    private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+    /**
+     * Contains the shift of the last level which still consumes bits of the hash, deeper levels only contain
+     * licenses whose scope uids have the very same hash.
+     */
+    private static final int MAX_SHIFT = 30;
+    private static final int MAX_DEPTH = MAX_SHIFT / BITS_PER_LEVEL + 2;
+
+    private final Node root;
+    private final int size;
+    private Set<Entry<String, LicenseData>> entrySet;
+
+    private PersistentLicenseMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    private static int hash(String scopeUid) {
+        int hash = scopeUid.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Returns a map containing all licenses of this map and the given license, which replaces the license of its
+     * scope.
+     *
+     * @param licenseData the license to add
+     * @return a map containing the given license, this map if it already contains the very same license
+     */
+    PersistentLicenseMap with(LicenseData licenseData) {
+        String scopeUid = licenseData.getScopeId();
+        LicenseData previous = get(scopeUid);
+        if (previous == licenseData) {
+            return this;
+        }
+        return new PersistentLicenseMap(root.with(licenseData, hash(scopeUid), 0),
+                                        previous == null ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map containing all licenses of this map except the license of the given scope.
+     *
+     * @param scopeUid the uid of the scope to remove
+     * @return a map without a license for the given scope, this map if it contains no license for the scope
+     */
+    PersistentLicenseMap without(String scopeUid) {
+        if (get(scopeUid) == null) {
+            return this;
+        }
+        Object newRoot = root.without(scopeUid, hash(scopeUid), 0);
+        // the root never collapses into a single license, so it is either a node or gone
+        return newRoot == null ? EMPTY : new PersistentLicenseMap((Node) newRoot, size - 1);
+    }
+
+    @Override
+    public LicenseData get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        String scopeUid = (String) key;
+        return root.get(scopeUid, hash(scopeUid), 0);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<String, LicenseData>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /**
+     * Represents a node of the trie. Each slot of a node contains either a {@link LicenseData} or a child node.
+     */
+    private abstract static class Node {
+
+        abstract LicenseData get(String scopeUid, int hash, int shift);
+
+        abstract Node with(LicenseData licenseData, int hash, int shift);
+
+        /**
+         * Removes the license of the given scope, which must be contained below this node.
+         *
+         * @return the remaining node, the only remaining license which is to be moved into the parent node or
+         * <tt>null</tt> if the node is empty
+         */
+        abstract Object without(String scopeUid, int hash, int shift);
+
+        abstract Object[] slots();
+    }
+
+    private static class BitmapNode extends Node {
+
+        private final int bitmap;
+        private final Object[] slots;
+
+        BitmapNode(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        private static Node createNode(LicenseData first,
+                                       int firstHash,
+                                       LicenseData second,
+                                       int secondHash,
+                                       int shift) {
+            if (shift > MAX_SHIFT) {
+                return new CollisionNode(new Object[]{first, second});
+            }
+            int firstIndex = (firstHash >>> shift) & LEVEL_MASK;
+            int secondIndex = (secondHash >>> shift) & LEVEL_MASK;
+            if (firstIndex == secondIndex) {
+                return new BitmapNode(1 << firstIndex,
+                                      new Object[]{createNode(first,
+                                                              firstHash,
+                                                              second,
+                                                              secondHash,
+                                                              shift + BITS_PER_LEVEL)});
+            }
+            int bitmap = (1 << firstIndex) | (1 << secondIndex);
+            return new BitmapNode(bitmap,
+                                  firstIndex < secondIndex ?
+                                  new Object[]{first, second} :
+                                  new Object[]{second, first});
+        }
+
+        private int indexOf(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        LicenseData get(String scopeUid, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & LEVEL_MASK);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = slots[indexOf(bit)];
+            if (slot instanceof LicenseData) {
+                LicenseData licenseData = (LicenseData) slot;
+                return scopeUid.equals(licenseData.getScopeId()) ? licenseData : null;
+            }
+            return ((Node) slot).get(scopeUid, hash, shift + BITS_PER_LEVEL);
+        }
+
+        @Override
+        Node with(LicenseData licenseData, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & LEVEL_MASK);
+            int index = indexOf(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] newSlots = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, newSlots, 0, index);
+                System.arraycopy(slots, index, newSlots, index + 1, slots.length - index);
+                newSlots[index] = licenseData;
+                return new BitmapNode(bitmap | bit, newSlots);
+            }
+
+            Object slot = slots[index];
+            Object newSlot;
+            if (slot instanceof LicenseData) {
+                LicenseData existing = (LicenseData) slot;
+                if (existing.getScopeId().equals(licenseData.getScopeId())) {
+                    newSlot = licenseData;
+                } else {
+                    newSlot = createNode(existing,
+                                         hash(existing.getScopeId()),
+                                         licenseData,
+                                         hash,
+                                         shift + BITS_PER_LEVEL);
+                }
+            } else {
+                newSlot = ((Node) slot).with(licenseData, hash, shift + BITS_PER_LEVEL);
+            }
+            Object[] newSlots = slots.clone();
+            newSlots[index] = newSlot;
+            return new BitmapNode(bitmap, newSlots);
+        }
+
+        @Override
+        Object without(String scopeUid, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & LEVEL_MASK);
+            int index = indexOf(bit);
+            Object slot = slots[index];
+            Object newSlot = slot instanceof LicenseData ?
+                             null :
+                             ((Node) slot).without(scopeUid, hash, shift + BITS_PER_LEVEL);
+            if (newSlot != null) {
+                Object[] newSlots = slots.clone();
+                newSlots[index] = newSlot;
+                return collapse(new BitmapNode(bitmap, newSlots), shift);
+            }
+
+            if (slots.length == 1) {
+                return null;
+            }
+            Object[] newSlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, index);
+            System.arraycopy(slots, index + 1, newSlots, index, newSlots.length - index);
+            return collapse(new BitmapNode(bitmap & ~bit, newSlots), shift);
+        }
+
+        private static Object collapse(BitmapNode node, int shift) {
+            // a node below the root containing a single license is replaced by the license itself
+            if (shift > 0 && node.slots.length == 1 && node.slots[0] instanceof LicenseData) {
+                return node.slots[0];
+            }
+            return node;
+        }
+
+        @Override
+        Object[] slots() {
+            return slots;
+        }
+    }
+
+    /**
+     * Contains licenses whose scope uids have the same hash.
+     */
+    private static class CollisionNode extends Node {
+
+        private final Object[] licenses;
+
+        CollisionNode(Object[] licenses) {
+            this.licenses = licenses;
+        }
+
+        private int indexOf(String scopeUid) {
+            for (int i = 0; i < licenses.length; i++) {
+                if (scopeUid.equals(((LicenseData) licenses[i]).getScopeId())) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        LicenseData get(String scopeUid, int hash, int shift) {
+            int index = indexOf(scopeUid);
+            return index < 0 ? null : (LicenseData) licenses[index];
+        }
+
+        @Override
+        Node with(LicenseData licenseData, int hash, int shift) {
+            int index = indexOf(licenseData.getScopeId());
+            Object[] newLicenses;
+            if (index < 0) {
+                newLicenses = new Object[licenses.length + 1];
+                System.arraycopy(licenses, 0, newLicenses, 0, licenses.length);
+                newLicenses[licenses.length] = licenseData;
+            } else {
+                newLicenses = licenses.clone();
+                newLicenses[index] = licenseData;
+            }
+            return new CollisionNode(newLicenses);
+        }
+
+        @Override
+        Object without(String scopeUid, int hash, int shift) {
+            int index = indexOf(scopeUid);
+            if (licenses.length == 2) {
+                return licenses[1 - index];
+            }
+            Object[] newLicenses = new Object[licenses.length - 1];
+            System.arraycopy(licenses, 0, newLicenses, 0, index);
+            System.arraycopy(licenses, index + 1, newLicenses, index, newLicenses.length - index);
+            return new CollisionNode(newLicenses);
+        }
+
+        @Override
+        Object[] slots() {
+            return licenses;
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Entry<String, LicenseData>> {
+
+        @Override
+        public Iterator<Entry<String, LicenseData>> iterator() {
+            return new Iterator<Entry<String, LicenseData>>() {
+
+                private final Object[][] path = new Object[MAX_DEPTH][];
+                private final int[] positions = new int[MAX_DEPTH];
+                private int depth;
+                private LicenseData next;
+
+                {
+                    path[0] = root.slots();
+                    next = advance();
+                }
+
+                private LicenseData advance() {
+                    while (depth >= 0) {
+                        if (positions[depth] == path[depth].length) {
+                            depth--;
+                            continue;
+                        }
+                        Object slot = path[depth][positions[depth]++];
+                        if (slot instanceof LicenseData) {
+                            return (LicenseData) slot;
+                        }
+                        depth++;
+                        path[depth] = ((Node) slot).slots();
+                        positions[depth] = 0;
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public Entry<String, LicenseData> next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    LicenseData licenseData = next;
+                    next = advance();
+                    return new SimpleImmutableEntry<>(licenseData.getScopeId(), licenseData);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
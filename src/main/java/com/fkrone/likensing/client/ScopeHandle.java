@@ -0,0 +1,109 @@
+package com.fkrone.likensing.client;
+
+/**
+ * Checks the license of a single scope repeatedly.
+ * <p>
+ * A handle is obtained via {@link LicenseChecker#scopeHandle(String)} and is bound to the slot of its scope in the
+ * registry, which is updated whenever the license of the scope is imported or removed. So a check via the handle
+ * only needs a single volatile read to get the current license of the scope and the feature test itself, while
+ * the corresponding methods of the {@link LicenseChecker} validate the scope uid and look it up first.
+ * <p>
+ * Handles are thread safe. Licenses imported via {@link LicenseVerificationMode#LAZY} are verified on the first
+ * check, just like via the {@link LicenseChecker}.
+ */
+public final class ScopeHandle {
+
+    private final LicenseChecker licenseChecker;
+    private final String scopeUid;
+    private final LicenseRegistry.ScopeSlot slot;
+
+    ScopeHandle(LicenseChecker licenseChecker, String scopeUid, LicenseRegistry.ScopeSlot slot) {
+        this.licenseChecker = licenseChecker;
+        this.scopeUid = scopeUid;
+        this.slot = slot;
+    }
+
+    /**
+     * Returns the uid of the scope checked by this handle.
+     *
+     * @return the uid of the scope
+     */
+    public String getScopeUid() {
+        return scopeUid;
+    }
+
+    /**
+     * Checks whether a license is available for the scope.
+     *
+     * @return <tt>true</tt> if a license is available, <tt>false</tt> otherwise
+     * @see LicenseChecker#hasLicense(String)
+     */
+    public boolean hasLicense() {
+        return findLicense() != null;
+    }
+
+    /**
+     * Checks if the license of the scope is still valid.
+     *
+     * @return <tt>true</tt> if the license is still valid, <tt>false</tt> otherwise
+     * @see LicenseChecker#isLicenseStillValid(String)
+     */
+    public boolean isLicenseStillValid() {
+        return licenseChecker.isStillValid(findLicense());
+    }
+
+    /**
+     * Checks if the given feature is licensed for the scope.
+     *
+     * @param feature the feature to check
+     * @return <tt>true</tt> the feature is licensed, <tt>false</tt> otherwise
+     * @see LicenseChecker#isLicensed(String, String)
+     */
+    public boolean isLicensed(String feature) {
+        return licenseChecker.isFeatureLicensed(findLicense(), feature);
+    }
+
+    /**
+     * Checks if the given feature is licensed for the scope.
+     *
+     * @param feature the feature to check, obtained via {@link Feature#of(String)}
+     * @return <tt>true</tt> the feature is licensed, <tt>false</tt> otherwise
+     * @see LicenseChecker#isLicensed(String, Feature)
+     */
+    public boolean isLicensed(Feature feature) {
+        return licenseChecker.isFeatureLicensed(findLicense(), feature);
+    }
+
+    /**
+     * Checks which of the given features are licensed for the scope.
+     *
+     * @param features the features to check, obtained via {@link Feature#of(String)}
+     * @return a bitmask containing a set bit for each licensed feature
+     * @see LicenseChecker#checkFeatures(String, Feature...)
+     */
+    public long checkFeatures(Feature... features) {
+        licenseChecker.assertValidFeatureCount(features);
+        return licenseChecker.checkLicensedFeatures(findLicense(), features);
+    }
+
+    /**
+     * Checks which of the given features are licensed for the scope.
+     *
+     * @param features the names of the features to check
+     * @return a bitmask containing a set bit for each licensed feature
+     * @see LicenseChecker#checkFeatureNames(String, String...)
+     */
+    public long checkFeatureNames(String... features) {
+        licenseChecker.assertValidFeatureCount(features);
+        return licenseChecker.checkLicensedFeatures(findLicense(), features);
+    }
+
+    private LicenseData findLicense() {
+        return licenseChecker.findPendingLicense(scopeUid, slot.get());
+    }
+
+    @Override
+    public String toString() {
+        return scopeUid;
+    }
+}
@@ -0,0 +1,530 @@
+package com.fkrone.likensing.client;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Reads a license in a single pass over its XML events.
+ * <p>
+ * While reading, the licensed properties are serialized in the canonical form licenses are signed in and fed
+ * into the given signature right away: attributes are written in the order of their names, empty elements in
+ * their short form <tt>&lt;x/&gt;</tt>, text is escaped again, CDATA sections, comments and processing
+ * instructions are kept and a line break is appended, as the properties are signed as a standalone document. All
+ * other values needed to build a {@link LicenseData} are collected along the way, so neither a DOM nor a second
+ * serialization pass is needed.
+ * <p>
+ * The values are looked up with the same semantics as the DOM based parsing in {@link LicenseParser}: each tag
+ * is searched among all descendants of its parent and must appear exactly once. Likewise each feature tag within
+ * the licensed features counts, even if it is nested into another one, and contributes its whole text content.
+ * <p>
+ * The signature is requested once the licensed properties start. At this point the optional <tt>keyId</tt>
+ * attribute of the root element is already known, so the signature can be initialized with the matching key.
+ */
+class StreamingLicenseReader {
+
+    private static final String LICENSED_PROPERTIES = "licensedProperties";
+    private static final String SIGN_KEY = "signKey";
+    private static final String SCOPE_UID = "scopeUid";
+    private static final String VALID_UNTIL = "validUntil";
+    private static final String LICENSED_FEATURES = "licensedFeatures";
+    private static final String FEATURE = "feature";
+    private static final String KEY_ID = "keyId";
+
+    private static final String REPORT_CDATA_PROPERTY = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+
+    private final TagContent licensedProperties = new TagContent(LICENSED_PROPERTIES);
+    private final TagContent signKey = new TagContent(SIGN_KEY);
+    private final TagContent scopeUid = new TagContent(SCOPE_UID);
+    private final TagContent validUntil = new TagContent(VALID_UNTIL);
+    private final TagContent licensedFeatures = new TagContent(LICENSED_FEATURES);
+    private final List<StringBuilder> features = new ArrayList<>();
+    private final Deque<StringBuilder> openFeatures = new ArrayDeque<>();
+
+    private int depth;
+    private int licensedPropertiesDepth;
+    private int licensedFeaturesDepth;
+    private TagContent capturedTag;
+    private int capturedTagDepth;
+    private String keyId;
+    private Signature signature;
+    private Writer signedContent;
+    private boolean startTagOpen;
+
+    /**
+     * Creates a new factory configured to read licenses.
+     *
+     * @return a new factory which can be used to read licenses
+     */
+    static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        if (factory.isPropertySupported(REPORT_CDATA_PROPERTY)) {
+            factory.setProperty(REPORT_CDATA_PROPERTY, true);
+        }
+        return factory;
+    }
+
+    /**
+     * Reads the scope uid of the given license without verifying the license.
+     * <p>
+     * Reading stops as soon as the scope uid within the licensed properties has been found.
+     *
+     * @param factory the factory to create the XML reader with
+     * @param license the decoded license to read
+     * @return the trimmed content of the scope uid tag
+     * @throws IOException if reading the license fails
+     */
+    static String readScopeUid(XMLInputFactory factory, InputStream license) throws IOException {
+        try {
+            XMLStreamReader reader = factory.createXMLStreamReader(license);
+            try {
+                int depth = 0;
+                int licensedPropertiesDepth = 0;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        depth++;
+                        String name = reader.getLocalName();
+                        if (licensedPropertiesDepth == 0 && depth > 1 && LICENSED_PROPERTIES.equals(name)) {
+                            licensedPropertiesDepth = depth;
+                        } else if (licensedPropertiesDepth > 0 && SCOPE_UID.equals(name)) {
+                            return reader.getElementText().trim();
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        if (depth == licensedPropertiesDepth) {
+                            break;
+                        }
+                        depth--;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("Failed to parse provided license.", e);
+        }
+        throw new IllegalArgumentException("Cannot parse XML tag "
+                                           + SCOPE_UID
+                                           + " as it has 0 appearances instead of expected 1.");
+    }
+
+    /**
+     * Reads the given license and feeds its licensed properties into the signature supplied by the given provider.
+     *
+     * @param factory           the factory to create the XML reader with
+     * @param license           the decoded license to read
+     * @param signatureProvider provides the signature initialized for verification with the key of the license
+     * @throws IOException              if reading the license fails
+     * @throws SignatureException       if feeding the signature fails or no key matches the license
+     * @throws NoSuchAlgorithmException if the signature algorithm is not available
+     * @throws InvalidKeyException      if the public key to verify the license is invalid
+     */
+    void read(XMLInputFactory factory, InputStream license, SignatureProvider signatureProvider)
+            throws IOException, SignatureException, NoSuchAlgorithmException, InvalidKeyException {
+        try {
+            XMLStreamReader reader = factory.createXMLStreamReader(license);
+            try {
+                while (reader.hasNext()) {
+                    handleEvent(reader, signatureProvider);
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("Failed to parse provided license.", e);
+        } catch (SignatureUpdateException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void handleEvent(XMLStreamReader reader, SignatureProvider signatureProvider)
+            throws XMLStreamException, IOException, SignatureException, NoSuchAlgorithmException,
+                   InvalidKeyException {
+        int event = reader.next();
+        switch (event) {
+            case XMLStreamConstants.START_ELEMENT:
+                handleStartElement(reader, signatureProvider);
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                handleEndElement(reader);
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.SPACE:
+                handleText(reader.getText(), false);
+                break;
+            case XMLStreamConstants.CDATA:
+                handleText(reader.getText(), true);
+                break;
+            case XMLStreamConstants.COMMENT:
+                writeMarkup("<!--" + reader.getText() + "-->");
+                break;
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                writeProcessingInstruction(reader);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void handleStartElement(XMLStreamReader reader, SignatureProvider signatureProvider)
+            throws IOException, SignatureException, NoSuchAlgorithmException, InvalidKeyException {
+        depth++;
+        String name = reader.getLocalName();
+
+        if (depth == 1) {
+            keyId = reader.getAttributeValue(null, KEY_ID);
+        }
+        if (depth > 1 && LICENSED_PROPERTIES.equals(name) && ++licensedProperties.count == 1) {
+            licensedPropertiesDepth = depth;
+            if (signedContent == null) {
+                signature = signatureProvider.provide(keyId);
+                signedContent = new BufferedWriter(new OutputStreamWriter(new SignatureOutputStream(signature),
+                                                                          StandardCharsets.UTF_8));
+            }
+        }
+        writeStartElement(reader, name);
+
+        if (depth > 1 && SIGN_KEY.equals(name)) {
+            startCapture(signKey);
+        }
+        if (licensedPropertiesDepth > 0 && depth > licensedPropertiesDepth) {
+            handlePropertyElement(name);
+        }
+    }
+
+    private void handlePropertyElement(String name) {
+        if (SCOPE_UID.equals(name)) {
+            startCapture(scopeUid);
+        } else if (VALID_UNTIL.equals(name)) {
+            startCapture(validUntil);
+        } else if (LICENSED_FEATURES.equals(name)) {
+            licensedFeatures.count++;
+            if (licensedFeaturesDepth == 0 && licensedFeatures.count == 1) {
+                licensedFeaturesDepth = depth;
+            }
+        } else if (FEATURE.equals(name) && licensedFeaturesDepth > 0) {
+            StringBuilder featureText = new StringBuilder();
+            features.add(featureText);
+            openFeatures.push(featureText);
+        }
+    }
+
+    private void startCapture(TagContent tag) {
+        tag.count++;
+        if (capturedTag == null && tag.count == 1) {
+            capturedTag = tag;
+            capturedTagDepth = depth;
+        }
+    }
+
+    private void handleEndElement(XMLStreamReader reader) throws IOException {
+        String name = reader.getLocalName();
+        writeEndElement(name);
+
+        if (depth == capturedTagDepth) {
+            capturedTag = null;
+            capturedTagDepth = 0;
+        }
+        if (licensedFeaturesDepth > 0 && depth > licensedFeaturesDepth && FEATURE.equals(name)) {
+            openFeatures.pop();
+        }
+        if (depth == licensedFeaturesDepth) {
+            licensedFeaturesDepth = -1;
+        }
+        if (depth == licensedPropertiesDepth) {
+            // the properties were signed as a standalone document which ends with a line break
+            signedContent.write('\n');
+            signedContent.flush();
+            licensedPropertiesDepth = -1;
+        }
+        depth--;
+    }
+
+    private void handleText(String text, boolean cdata) throws IOException {
+        if (capturedTag != null) {
+            capturedTag.text.append(text);
+        }
+        for (StringBuilder featureText : openFeatures) {
+            featureText.append(text);
+        }
+        if (!isWritingSignedContent()) {
+            return;
+        }
+        closeStartTag();
+        if (cdata) {
+            signedContent.write("<![CDATA[");
+            signedContent.write(text);
+            signedContent.write("]]>");
+        } else {
+            writeEscaped(text, false);
+        }
+    }
+
+    private boolean isWritingSignedContent() {
+        return licensedPropertiesDepth > 0 && depth >= licensedPropertiesDepth;
+    }
+
+    private void writeStartElement(XMLStreamReader reader, String name) throws IOException {
+        if (!isWritingSignedContent()) {
+            return;
+        }
+        closeStartTag();
+        signedContent.write('<');
+        signedContent.write(name);
+
+        // attributes are serialized in the order of their names, just like a DOM does
+        String[][] attributes = new String[reader.getAttributeCount()][];
+        for (int i = 0; i < attributes.length; i++) {
+            String prefix = reader.getAttributePrefix(i);
+            String attributeName = reader.getAttributeLocalName(i);
+            if (prefix != null && !prefix.isEmpty()) {
+                attributeName = prefix + ":" + attributeName;
+            }
+            attributes[i] = new String[]{attributeName, reader.getAttributeValue(i)};
+        }
+        Arrays.sort(attributes, (left, right) -> left[0].compareTo(right[0]));
+        for (String[] attribute : attributes) {
+            signedContent.write(' ');
+            signedContent.write(attribute[0]);
+            signedContent.write("=\"");
+            writeEscaped(attribute[1], true);
+            signedContent.write('"');
+        }
+        startTagOpen = true;
+    }
+
+    private void writeEndElement(String name) throws IOException {
+        if (!isWritingSignedContent()) {
+            return;
+        }
+        if (startTagOpen) {
+            signedContent.write("/>");
+            startTagOpen = false;
+        } else {
+            signedContent.write("</");
+            signedContent.write(name);
+            signedContent.write('>');
+        }
+    }
+
+    private void writeProcessingInstruction(XMLStreamReader reader) throws IOException {
+        String data = reader.getPIData();
+        if (data == null || data.isEmpty()) {
+            writeMarkup("<?" + reader.getPITarget() + "?>");
+        } else {
+            writeMarkup("<?" + reader.getPITarget() + " " + data + "?>");
+        }
+    }
+
+    private void writeMarkup(String markup) throws IOException {
+        if (!isWritingSignedContent()) {
+            return;
+        }
+        closeStartTag();
+        signedContent.write(markup);
+    }
+
+    private void closeStartTag() throws IOException {
+        if (startTagOpen) {
+            signedContent.write('>');
+            startTagOpen = false;
+        }
+    }
+
+    private void writeEscaped(String text, boolean attribute) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            switch (character) {
+                case '&':
+                    signedContent.write("&amp;");
+                    break;
+                case '<':
+                    signedContent.write("&lt;");
+                    break;
+                case '>':
+                    signedContent.write("&gt;");
+                    break;
+                case '\r':
+                    signedContent.write("&#13;");
+                    break;
+                case '"':
+                    signedContent.write(attribute ? "&quot;" : "\"");
+                    break;
+                case '\n':
+                    signedContent.write(attribute ? "&#10;" : "\n");
+                    break;
+                default:
+                    signedContent.write(character);
+            }
+        }
+    }
+
+    /**
+     * Returns the content of the sign key tag.
+     *
+     * @return the trimmed content of the sign key tag
+     */
+    String getSignKey() {
+        return signKey.getContent();
+    }
+
+    /**
+     * Returns the content of the scope uid tag.
+     *
+     * @return the trimmed content of the scope uid tag
+     */
+    String getScopeUid() {
+        return scopeUid.getContent();
+    }
+
+    /**
+     * Returns the content of the valid until tag.
+     *
+     * @return the trimmed content of the valid until tag
+     */
+    String getValidUntil() {
+        return validUntil.getContent();
+    }
+
+    /**
+     * Returns the content of all feature tags within the licensed features tag.
+     *
+     * @return the trimmed content of all feature tags
+     */
+    List<String> getFeatures() {
+        licensedFeatures.assertSingleAppearance();
+        List<String> featureNames = new ArrayList<>(features.size());
+        for (StringBuilder featureText : features) {
+            featureNames.add(featureText.toString().trim());
+        }
+        return featureNames;
+    }
+
+    /**
+     * Returns the signature the licensed properties were fed into.
+     *
+     * @return the signature which is ready to verify the sign key
+     */
+    Signature getSignature() {
+        assertLicensedPropertiesFound();
+        return signature;
+    }
+
+    /**
+     * Ensures that the licensed properties, which were fed into the signature, appeared exactly once.
+     */
+    void assertLicensedPropertiesFound() {
+        licensedProperties.assertSingleAppearance();
+    }
+
+    /**
+     * Provides the signature to feed the licensed properties into.
+     */
+    @FunctionalInterface
+    interface SignatureProvider {
+
+        /**
+         * Provides a signature initialized to verify a license signed with the given key.
+         *
+         * @param keyId the key id named by the license or <tt>null</tt> if the license does not name a key
+         * @return the signature initialized for verification
+         * @throws SignatureException       if no key matches the given key id
+         * @throws NoSuchAlgorithmException if the signature algorithm is not available
+         * @throws InvalidKeyException      if the public key to verify the license is invalid
+         */
+        Signature provide(String keyId) throws SignatureException, NoSuchAlgorithmException, InvalidKeyException;
+    }
+
+    /**
+     * Collects the appearances and the text content of a tag.
+     */
+    private static class TagContent {
+
+        private final String tag;
+        private final StringBuilder text = new StringBuilder();
+        private int count;
+
+        TagContent(String tag) {
+            this.tag = tag;
+        }
+
+        void assertSingleAppearance() {
+            if (count != 1) {
+                throw new IllegalArgumentException("Cannot parse XML tag "
+                                                   + tag
+                                                   + " as it has "
+                                                   + count
+                                                   + " appearances instead of expected 1.");
+            }
+        }
+
+        String getContent() {
+            assertSingleAppearance();
+            return text.toString().trim();
+        }
+    }
+
+    /**
+     * Feeds all written bytes into a signature.
+     */
+    private static class SignatureOutputStream extends OutputStream {
+
+        private final Signature signature;
+
+        SignatureOutputStream(Signature signature) {
+            this.signature = signature;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            try {
+                signature.update(b, off, len);
+            } catch (SignatureException e) {
+                throw new SignatureUpdateException(e);
+            }
+        }
+    }
+
+    /**
+     * Transports a {@link SignatureException} through the writer, which only supports {@link IOException}s.
+     */
+    private static class SignatureUpdateException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        SignatureUpdateException(SignatureException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized SignatureException getCause() {
+            return (SignatureException) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.fkrone.likensing.client;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers licenses which have already been verified.
+ * <p>
+ * Licenses are identified by a SHA-256 digest over the fingerprint of the key ring they were verified with and
+ * their raw content, so changing the keys of a checker implicitly invalidates all previously verified licenses.
+ * Importing an unchanged license again therefore only costs computing the digest instead of parsing and
+ * verifying the license. The cache holds a bounded number of licenses and evicts the least recently used one
+ * once it is full.
+ */
+class VerifiedLicenseCache {
+
+    /**
+     * Contains the number of licenses cached by default.
+     */
+    static final int DEFAULT_CAPACITY = 10_000;
+
+    private final ThreadLocal<MessageDigest> digests = new ThreadLocal<>();
+    private final LinkedHashMap<ByteBuffer, LicenseData> licenses = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile int capacity = DEFAULT_CAPACITY;
+
+    /**
+     * Determines whether licenses are cached at all.
+     *
+     * @return <tt>true</tt> if the cache is enabled, <tt>false</tt> otherwise
+     */
+    boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    /**
+     * Computes the key identifying the given license.
+     *
+     * @param keyRing the key ring the license is verified with
+     * @param license the raw license
+     * @return the digest of the key ring and the license
+     * @throws NoSuchAlgorithmException if the digest algorithm is not available
+     */
+    ByteBuffer computeKey(LicenseKeyRing keyRing, String license) throws NoSuchAlgorithmException {
+        MessageDigest digest = obtainDigest();
+        digest.update(keyRing.getFingerprint());
+        digest.update(license.getBytes(StandardCharsets.ISO_8859_1));
+        return ByteBuffer.wrap(digest.digest());
+    }
+
+    /**
+     * Computes the key identifying the given license provided as bytes.
+     * <p>
+     * The key equals the key of the same license provided as string.
+     *
+     * @param keyRing the key ring the license is verified with
+     * @param license the raw license, its position is not changed
+     * @return the digest of the key ring and the license
+     * @throws NoSuchAlgorithmException if the digest algorithm is not available
+     */
+    ByteBuffer computeKey(LicenseKeyRing keyRing, ByteBuffer license) throws NoSuchAlgorithmException {
+        MessageDigest digest = obtainDigest();
+        digest.update(keyRing.getFingerprint());
+        digest.update(license.duplicate());
+        return ByteBuffer.wrap(digest.digest());
+    }
+
+    private MessageDigest obtainDigest() throws NoSuchAlgorithmException {
+        MessageDigest digest = digests.get();
+        if (digest == null) {
+            digest = MessageDigest.getInstance("SHA-256");
+            digests.set(digest);
+        }
+        return digest;
+    }
+
+    /**
+     * Returns the verified license for the given key.
+     *
+     * @param key the key computed via {@link #computeKey(LicenseKeyRing, String)}
+     * @return the verified license or <tt>null</tt> if the license is not cached
+     */
+    LicenseData get(ByteBuffer key) {
+        LicenseData licenseData;
+        synchronized (licenses) {
+            licenseData = licenses.get(key);
+        }
+        if (licenseData == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return licenseData;
+    }
+
+    /**
+     * Remembers the given verified license.
+     *
+     * @param key         the key computed via {@link #computeKey(LicenseKeyRing, String)}
+     * @param licenseData the verified license
+     */
+    void put(ByteBuffer key, LicenseData licenseData) {
+        synchronized (licenses) {
+            licenses.put(key, licenseData);
+            evictExceedingLicenses();
+        }
+    }
+
+    /**
+     * Changes the maximal number of cached licenses.
+     *
+     * @param capacity the maximal number of cached licenses, 0 disables the cache
+     */
+    void setCapacity(int capacity) {
+        synchronized (licenses) {
+            this.capacity = capacity;
+            evictExceedingLicenses();
+        }
+    }
+
+    /**
+     * Forgets all cached licenses.
+     * <p>
+     * This is used once the keys changed, as the cached licenses can no longer be looked up anyway.
+     */
+    void clear() {
+        synchronized (licenses) {
+            licenses.clear();
+        }
+    }
+
+    private void evictExceedingLicenses() {
+        Iterator<Map.Entry<ByteBuffer, LicenseData>> iterator = licenses.entrySet().iterator();
+        while (licenses.size() > capacity && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Returns the current statistics of the cache.
+     *
+     * @return the current statistics of the cache
+     */
+    LicenseCacheStatistics getStatistics() {
+        int size;
+        synchronized (licenses) {
+            size = licenses.size();
+        }
+        return new LicenseCacheStatistics(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+}
@@ -0,0 +1,115 @@
+package com.fkrone.likensing.client;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FeatureSetTest {
+
+    @Test
+    public void featuresAreResolvedOnce() {
+        Feature feature = Feature.of("feature-set-test");
+        assertSame(feature, Feature.of("feature-set-test"));
+        assertSame(feature, Feature.lookup("feature-set-test"));
+        assertEquals("feature-set-test", feature.getName());
+    }
+
+    @Test
+    public void containsOnlyGivenFeatures() {
+        for (int i = 0; i < 200; i++) {
+            Feature.of("feature-set-filler" + i);
+        }
+        FeatureSet featureSet =
+                FeatureSet.of(Arrays.asList("feature-set-a", "feature-set-filler150", "", "feature-set-a"));
+
+        assertEquals(2, featureSet.size());
+        assertTrue(featureSet.contains(Feature.of("feature-set-a")));
+        assertTrue(featureSet.contains(Feature.of("feature-set-filler150")));
+        assertFalse(featureSet.contains(Feature.of("feature-set-filler149")));
+        assertFalse(featureSet.contains(Feature.of("feature-set-registered-later")));
+        assertEquals(2, featureSet.getNames().size());
+    }
+
+    @Test
+    public void setsOfFeaturesWithHighIdsContainOnlyGivenFeatures() {
+        for (int i = 0; i < 2000; i++) {
+            Feature.of("feature-set-sparse" + i);
+        }
+        FeatureSet featureSet = FeatureSet.of(Arrays.asList("feature-set-sparse1999",
+                                                            "feature-set-a",
+                                                            "feature-set-sparse1000",
+                                                            "feature-set-sparse.*"));
+
+        assertEquals(4, featureSet.size());
+        assertTrue(featureSet.contains(Feature.of("feature-set-sparse1999")));
+        assertTrue(featureSet.contains("feature-set-sparse1000"));
+        assertTrue(featureSet.contains(Feature.of("feature-set-a")));
+        assertTrue(featureSet.contains("feature-set-sparse.x"));
+        assertFalse(featureSet.contains(Feature.of("feature-set-sparse1998")));
+        assertFalse(featureSet.contains(Feature.of("feature-set-sparse-registered-later")));
+        assertEquals(featureSet,
+                     FeatureSet.of(Arrays.asList("feature-set-sparse.*",
+                                                 "feature-set-sparse1000",
+                                                 "feature-set-a",
+                                                 "feature-set-sparse1999")));
+        assertFalse(featureSet.equals(FeatureSet.of(Arrays.asList("feature-set-sparse1999",
+                                                                  "feature-set-a",
+                                                                  "feature-set-sparse.*"))));
+    }
+
+    @Test
+    public void wildcardEntriesMatchDescendants() {
+        FeatureSet featureSet = FeatureSet.of(Arrays.asList("reporting.*", "export.csv", "a*", "export.*.pdf"));
+
+        assertTrue(featureSet.contains("reporting.sales"));
+        assertTrue(featureSet.contains("reporting.sales.export"));
+        assertTrue(featureSet.contains(Feature.of("reporting.registered")));
+        assertFalse(featureSet.contains("reporting"));
+        assertFalse(featureSet.contains("reporting."));
+        assertFalse(featureSet.contains("reportingFoo"));
+        assertTrue(featureSet.contains("export.csv"));
+        assertFalse(featureSet.contains("export.pdf"));
+        assertTrue(featureSet.contains("a*"));
+        assertFalse(featureSet.contains("ab"));
+        assertTrue(featureSet.contains("export.*.pdf"));
+        assertFalse(featureSet.contains("export.x.pdf"));
+        assertFalse(featureSet.contains("feature-set-wildcard-unknown"));
+        assertFalse(featureSet.contains(Feature.of("feature-set-wildcard-unknown")));
+        assertEquals(4, featureSet.size());
+        assertEquals(Arrays.asList("export.csv", "a*", "export.*.pdf", "reporting.*"),
+                     Arrays.asList(featureSet.getNames().toArray()));
+    }
+
+    @Test
+    public void globalWildcardMatchesAllFeatures() {
+        FeatureSet featureSet = FeatureSet.of(Collections.singletonList("*"));
+
+        assertTrue(featureSet.contains("reporting"));
+        assertTrue(featureSet.contains("feature-set-wildcard-anything.at.all"));
+        assertTrue(featureSet.contains(Feature.of("feature-set-a")));
+        assertFalse(featureSet.contains(""));
+    }
+
+    @Test
+    public void setsWithSameFeaturesAreEqual() {
+        FeatureSet featureSet = FeatureSet.of(Arrays.asList("feature-set-a", "b.*", "feature-set-b", "a.*"));
+        FeatureSet sameFeatureSet = FeatureSet.of(Arrays.asList("a.*", "feature-set-b", "b.*", "feature-set-a"));
+
+        assertEquals(featureSet, sameFeatureSet);
+        assertEquals(featureSet.hashCode(), sameFeatureSet.hashCode());
+        assertFalse(featureSet.equals(FeatureSet.of(Arrays.asList("feature-set-a", "feature-set-b", "a.*"))));
+        assertFalse(featureSet.equals(FeatureSet.of(Arrays.asList("feature-set-a", "b.*", "a.*"))));
+        assertEquals(FeatureSet.EMPTY, FeatureSet.of(Collections.singletonList("")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyFeatureNamesAreRejected() {
+        Feature.of("");
+    }
+}
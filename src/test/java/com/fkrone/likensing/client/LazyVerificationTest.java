@@ -0,0 +1,207 @@
+package com.fkrone.likensing.client;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LazyVerificationTest {
+
+    private static final long VALID_UNTIL = System.currentTimeMillis() + 86_400_000L * 30;
+
+    private static KeyPair keyPair;
+
+    private LicenseChecker licenseChecker;
+    private LicenseMetrics metrics;
+
+    @BeforeClass
+    public static void setupKeys() throws Exception {
+        keyPair = TestLicenses.generateKeyPair();
+    }
+
+    @Before
+    public void setupChecker() throws Exception {
+        licenseChecker = LicenseChecker.createChecker(TestLicenses.encodePublicKey(keyPair));
+        licenseChecker.setVerificationMode(LicenseVerificationMode.LAZY);
+        metrics = new LicenseMetrics();
+        licenseChecker.setMetricsListener(metrics);
+    }
+
+    private long verifications() {
+        return metrics.snapshot().getStageLatency(LicenseImportStage.IMPORT).getCount();
+    }
+
+    @Test
+    public void licensesAreVerifiedOnFirstUse() throws Exception {
+        licenseChecker.importLicense(TestLicenses.createLicense(keyPair, "used", VALID_UNTIL, "a"));
+        List<LicenseImportResult> results =
+                licenseChecker.importLicenses(Arrays.asList(TestLicenses.createLicense(keyPair, "unused", VALID_UNTIL),
+                                                            "Invalid"));
+        assertTrue(results.get(0).isDeferred());
+        assertEquals("unused", results.get(0).getScopeUid());
+        assertFalse(results.get(1).isSuccessful());
+        assertEquals(0, verifications());
+        assertNull(licenseChecker.getRegistry().get("used"));
+
+        assertTrue(licenseChecker.isLicensed("used", "a"));
+        assertTrue(licenseChecker.hasLicense("used"));
+        assertEquals(1, verifications());
+        assertTrue(licenseChecker.getRegistry().get("used") != null);
+    }
+
+    @Test
+    public void forgedLicensesAreRejectedOnFirstUse() throws Exception {
+        KeyPair otherKeyPair = TestLicenses.generateKeyPair();
+        licenseChecker.importLicense(TestLicenses.createLicense(otherKeyPair, "forged", VALID_UNTIL, "a"));
+
+        assertFalse(licenseChecker.isLicensed("forged", "a"));
+        assertFalse(licenseChecker.hasLicense("forged"));
+    }
+
+    @Test
+    public void forgedReimportsKeepTheVerifiedLicense() throws Exception {
+        licenseChecker.setVerificationMode(LicenseVerificationMode.EAGER);
+        licenseChecker.importLicense(TestLicenses.createLicense(keyPair, "scope", VALID_UNTIL, "a"));
+        licenseChecker.setVerificationMode(LicenseVerificationMode.LAZY);
+        KeyPair otherKeyPair = TestLicenses.generateKeyPair();
+        licenseChecker.importLicense(TestLicenses.createLicense(otherKeyPair, "scope", VALID_UNTIL, "forged"));
+
+        assertTrue(licenseChecker.hasLicense("scope"));
+        assertTrue(licenseChecker.isLicensed("scope", "a"));
+        assertFalse(licenseChecker.isLicensed("scope", "forged"));
+    }
+
+    @Test
+    public void handlesVerifyReimportedLicenses() throws Exception {
+        ScopeHandle handle = licenseChecker.scopeHandle("scope");
+        licenseChecker.importLicense(TestLicenses.createLicense(keyPair, "scope", VALID_UNTIL, "first"));
+        assertTrue(handle.isLicensed("first"));
+
+        licenseChecker.importLicense(TestLicenses.createLicense(keyPair, "scope", VALID_UNTIL, "second"));
+        assertTrue(handle.isLicensed("second"));
+        assertFalse(handle.isLicensed("first"));
+    }
+
+    @Test
+    public void newerImportsReplaceOlderOnes() throws Exception {
+        licenseChecker.importLicense(TestLicenses.createLicense(keyPair, "scope", VALID_UNTIL, "lazy"));
+        licenseChecker.setVerificationMode(LicenseVerificationMode.EAGER);
+        licenseChecker.importLicense(TestLicenses.createLicense(keyPair, "scope", VALID_UNTIL, "eager"));
+        assertTrue(licenseChecker.isLicensed("scope", "eager"));
+        assertFalse(licenseChecker.isLicensed("scope", "lazy"));
+
+        licenseChecker.setVerificationMode(LicenseVerificationMode.LAZY);
+        licenseChecker.importLicense(TestLicenses.createLicense(keyPair, "scope", VALID_UNTIL, "lazy"));
+        assertTrue(licenseChecker.isLicensed("scope", "lazy"));
+        assertFalse(licenseChecker.isLicensed("scope", "eager"));
+
+        licenseChecker.importLicense(TestLicenses.createLicense(keyPair, "removed", VALID_UNTIL));
+        licenseChecker.removeLicense("removed");
+        assertFalse(licenseChecker.hasLicense("removed"));
+    }
+
+    @Test
+    public void batchImportsReplacePendingLicenses() throws Exception {
+        licenseChecker.importLicense(TestLicenses.createLicense(keyPair, "scope", VALID_UNTIL, "lazy"));
+        licenseChecker.setVerificationMode(LicenseVerificationMode.EAGER);
+        String eagerLicense = TestLicenses.createLicense(keyPair, "scope", VALID_UNTIL, "eager");
+        licenseChecker.importLicenses(Arrays.asList(eagerLicense));
+
+        assertTrue(licenseChecker.isLicensed("scope", "eager"));
+        assertFalse(licenseChecker.isLicensed("scope", "lazy"));
+        // the pending license has been dropped without verifying it
+        assertEquals(1, verifications());
+    }
+
+    @Test
+    public void licensesDeferredWhilePublishingAreKept() throws Exception {
+        String eagerLicense = TestLicenses.createLicense(keyPair, "scope", VALID_UNTIL, "eager");
+        String lazyLicense = TestLicenses.createLicense(keyPair, "scope", VALID_UNTIL, "lazy");
+        CountDownLatch published = new CountDownLatch(1);
+        CountDownLatch deferred = new CountDownLatch(1);
+        licenseChecker.getRegistry().addListener(licenseData -> {
+            published.countDown();
+            try {
+                // gives the lazy import the chance to run while the eager import is still publishing
+                deferred.await(200, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> eagerImport = executor.submit(() -> {
+                licenseChecker.importLicense(ByteBuffer.wrap(eagerLicense.getBytes(StandardCharsets.US_ASCII)));
+                return null;
+            });
+            assertTrue(published.await(10, TimeUnit.SECONDS));
+            licenseChecker.importLicense(lazyLicense);
+            deferred.countDown();
+            eagerImport.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(licenseChecker.isLicensed("scope", "lazy"));
+    }
+
+    @Test
+    public void listenersMayChangeTheCheckerOfTheirScope() throws Exception {
+        licenseChecker.getRegistry().addListener(licenseData -> {
+            for (LicenseData data : licenseData) {
+                if ("revoked".equals(data.getScopeId())) {
+                    licenseChecker.removeLicense(data.getScopeId());
+                }
+            }
+        });
+
+        licenseChecker.importLicense(TestLicenses.createLicense(keyPair, "revoked", VALID_UNTIL, "lazy"));
+        assertFalse(licenseChecker.hasLicense("revoked"));
+
+        licenseChecker.setVerificationMode(LicenseVerificationMode.EAGER);
+        licenseChecker.importLicense(TestLicenses.createLicense(keyPair, "revoked", VALID_UNTIL, "eager"));
+        assertFalse(licenseChecker.hasLicense("revoked"));
+    }
+
+    @Test
+    public void racingChecksVerifyOnlyOnce() throws Exception {
+        licenseChecker.importLicense(TestLicenses.createLicense(keyPair, "contended", VALID_UNTIL, "a"));
+
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return licenseChecker.isLicensed("contended", "a");
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, verifications());
+    }
+}
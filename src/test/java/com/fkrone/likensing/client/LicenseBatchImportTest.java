@@ -0,0 +1,82 @@
+package com.fkrone.likensing.client;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.security.KeyPair;
+import java.security.SignatureException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LicenseBatchImportTest {
+
+    private static final long VALID_UNTIL = 4102354800000L;
+
+    private static KeyPair keyPair;
+    private static LicenseChecker licenseChecker;
+
+    @BeforeClass
+    public static void setupChecker() throws Exception {
+        keyPair = TestLicenses.generateKeyPair();
+        LicenseChecker.initLicenseChecker(TestLicenses.encodePublicKey(keyPair));
+        licenseChecker = LicenseChecker.getChecker();
+    }
+
+    @Test
+    public void importingBatchWithFailingLicenses() throws Exception {
+        List<String> licenses =
+                Arrays.asList(TestLicenses.createLicense(keyPair, "batch1", VALID_UNTIL, "a"),
+                              TestLicenses.encode("<licensedProperties>\n<scopeUid>batch2</scopeUid>\n"
+                                                  + "</licensedProperties>", "Invalid"),
+                              "",
+                              TestLicenses.createLicense(keyPair, "batch3", VALID_UNTIL, "b"));
+
+        List<LicenseImportResult> results = licenseChecker.importLicenses(licenses);
+
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isSuccessful());
+        assertEquals("batch1", results.get(0).getScopeUid());
+        assertFalse(results.get(1).isSuccessful());
+        assertNull(results.get(1).getScopeUid());
+        assertTrue(results.get(1).getFailure() instanceof SignatureException);
+        assertTrue(results.get(2).getFailure() instanceof IllegalArgumentException);
+        assertEquals("batch3", results.get(3).getScopeUid());
+
+        assertTrue(licenseChecker.isLicensed("batch1", "a"));
+        assertFalse(licenseChecker.hasLicense("batch2"));
+        assertTrue(licenseChecker.isLicensed("batch3", "b"));
+    }
+
+    @Test
+    public void importingBatchAsynchronously() throws Exception {
+        List<String> licenses = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            licenses.add(TestLicenses.createLicense(keyPair, "async" + i, VALID_UNTIL, "feature" + i));
+        }
+        // the last license for a scope within a batch wins
+        licenses.add(TestLicenses.createLicense(keyPair, "async0", VALID_UNTIL, "replaced"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<LicenseImportResult> results =
+                    licenseChecker.importLicensesAsync(licenses, executor).get(30, TimeUnit.SECONDS);
+            assertEquals(21, results.size());
+            assertTrue(results.stream().allMatch(LicenseImportResult::isSuccessful));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(licenseChecker.isLicensed("async19", "feature19"));
+        assertTrue(licenseChecker.isLicensed("async0", "replaced"));
+        assertFalse(licenseChecker.isLicensed("async0", "feature0"));
+    }
+}
@@ -0,0 +1,99 @@
+package com.fkrone.likensing.client;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class LicenseBulkCheckTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2020, 6, 1);
+
+    private LicenseChecker licenseChecker;
+
+    @Before
+    public void setupChecker() throws Exception {
+        licenseChecker = LicenseChecker.createChecker(TODAY::toEpochDay);
+        licenseChecker.getRegistry()
+                      .publishAll(Arrays.asList(new LicenseData("scope",
+                                                                FeatureSet.of(Arrays.asList("a", "c")),
+                                                                TODAY),
+                                                new LicenseData("other", FeatureSet.of(Arrays.asList("b")), TODAY),
+                                                new LicenseData("expired",
+                                                                FeatureSet.of(Arrays.asList("a", "b", "c")),
+                                                                TODAY.minusDays(1))));
+    }
+
+    @Test
+    public void checkingFeatureNames() {
+        assertEquals(0b101, licenseChecker.checkFeatureNames("scope", "a", "b", "c", "unknown.feature"));
+        assertEquals(0b10, licenseChecker.checkFeatureNames("scope", null, "c"));
+        assertEquals(0, licenseChecker.checkFeatureNames("expired", "a", "b", "c"));
+        assertEquals(0, licenseChecker.checkFeatureNames("unknown", "a", "b", "c"));
+    }
+
+    @Test
+    public void checkingFeatureTokensForManyScopes() {
+        Feature[] features = {Feature.of("a"), Feature.of("b"), Feature.of("c")};
+        assertEquals(0b101, licenseChecker.checkFeatures("scope", features));
+        assertArrayEquals(new long[]{0b101, 0b010, 0, 0},
+                          licenseChecker.checkFeatures(Arrays.asList("scope", "other", "expired", "unknown"),
+                                                       features));
+    }
+
+    @Test
+    public void checkingFeatureNamesForManyScopes() {
+        assertArrayEquals(new long[]{0b101, 0b010, 0, 0},
+                          licenseChecker.checkFeatureNames(Arrays.asList("scope", "other", "expired", "unknown"),
+                                                           "a",
+                                                           "b",
+                                                           "c"));
+        assertArrayEquals(new long[0], licenseChecker.checkFeatureNames(Collections.emptyList(), "a"));
+    }
+
+    @Test
+    public void checkingNoFeatures() {
+        assertEquals(0, licenseChecker.checkFeatures("scope"));
+        assertEquals(0, licenseChecker.checkFeatureNames("scope"));
+        assertArrayEquals(new long[]{0, 0}, licenseChecker.checkFeatures(Arrays.asList("scope", "other")));
+        assertArrayEquals(new long[]{0, 0}, licenseChecker.checkFeatureNames(Arrays.asList("scope", "other")));
+        assertEquals(0, licenseChecker.scopeHandle("scope").checkFeatures());
+        assertEquals(0, licenseChecker.scopeHandle("scope").checkFeatureNames());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkingTooManyFeaturesForManyScopes() {
+        licenseChecker.checkFeatureNames(Arrays.asList("scope", "other"), new String[65]);
+    }
+
+    @Test
+    public void checksAreReportedPerFeature() {
+        LicenseMetrics metrics = new LicenseMetrics();
+        licenseChecker.setMetricsListener(metrics);
+        licenseChecker.checkFeatureNames("scope", "a", "b");
+        licenseChecker.checkFeatureNames("expired", "a");
+
+        LicenseMetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(1, snapshot.getCheckCount(LicenseCheckOutcome.LICENSED));
+        assertEquals(1, snapshot.getCheckCount(LicenseCheckOutcome.FEATURE_NOT_LICENSED));
+        assertEquals(1, snapshot.getCheckCount(LicenseCheckOutcome.EXPIRED));
+    }
+
+    @Test
+    public void the64thFeatureIsTheSignBit() {
+        String[] features = new String[64];
+        Arrays.fill(features, "b");
+        features[63] = "a";
+        assertEquals(Long.MIN_VALUE, licenseChecker.checkFeatureNames("scope", features));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkingTooManyFeatures() {
+        licenseChecker.checkFeatureNames("scope", new String[65]);
+    }
+}
@@ -0,0 +1,86 @@
+package com.fkrone.likensing.client;
+
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LicenseClockTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Berlin");
+
+    /**
+     * A clock which can be moved manually.
+     */
+    private static class MovableClock extends Clock {
+
+        private long millis;
+
+        MovableClock(ZonedDateTime time) {
+            this.millis = time.toInstant().toEpochMilli();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZONE;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+
+    @Test
+    public void dayChangesExactlyAtMidnight() {
+        MovableClock clock =
+                new MovableClock(ZonedDateTime.of(2030, 3, 30, 23, 59, 59, 999_000_000, ZONE));
+        LicenseClock licenseClock = LicenseClock.of(clock);
+        assertEquals(LocalDate.of(2030, 3, 30).toEpochDay(), licenseClock.currentEpochDay());
+
+        clock.millis++;
+        assertEquals(LocalDate.of(2030, 3, 31).toEpochDay(), licenseClock.currentEpochDay());
+
+        // 2030-03-31 only has 23 hours in Berlin due to daylight saving time
+        clock.millis += 23 * 60 * 60 * 1000 - 1;
+        assertEquals(LocalDate.of(2030, 3, 31).toEpochDay(), licenseClock.currentEpochDay());
+        clock.millis++;
+        assertEquals(LocalDate.of(2030, 4, 1).toEpochDay(), licenseClock.currentEpochDay());
+    }
+
+    @Test
+    public void clockMovingBackwardsIsHandled() {
+        MovableClock clock = new MovableClock(ZonedDateTime.of(2030, 1, 2, 0, 0, 0, 0, ZONE));
+        LicenseClock licenseClock = LicenseClock.of(clock);
+        assertEquals(LocalDate.of(2030, 1, 2).toEpochDay(), licenseClock.currentEpochDay());
+
+        clock.millis--;
+        assertEquals(LocalDate.of(2030, 1, 1).toEpochDay(), licenseClock.currentEpochDay());
+    }
+
+    @Test
+    public void licenseIsValidUntilEndOfLastDay() {
+        LicenseData licenseData =
+                new LicenseData("scope", FeatureSet.EMPTY, LocalDate.of(2030, 1, 1));
+        assertTrue(licenseData.isValidOn(LocalDate.of(2029, 12, 31).toEpochDay()));
+        assertTrue(licenseData.isValidOn(LocalDate.of(2030, 1, 1).toEpochDay()));
+        assertFalse(licenseData.isValidOn(LocalDate.of(2030, 1, 2).toEpochDay()));
+    }
+}
@@ -0,0 +1,125 @@
+package com.fkrone.likensing.client;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.KeyPair;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LicenseDirectoryLoaderTest {
+
+    private static final long VALID_UNTIL = 4102354800000L;
+
+    private static KeyPair keyPair;
+    private static LicenseChecker licenseChecker;
+
+    @BeforeClass
+    public static void setupChecker() throws Exception {
+        keyPair = TestLicenses.generateKeyPair();
+        LicenseChecker.initLicenseChecker(TestLicenses.encodePublicKey(keyPair));
+        licenseChecker = LicenseChecker.getChecker();
+    }
+
+    private static void writeLicense(Path file, String scopeUid, String feature) throws Exception {
+        String license = TestLicenses.createLicense(keyPair, scopeUid, VALID_UNTIL, feature) + "\n";
+        Files.write(file, license.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void writeLicense(Path file, String scopeUid, String feature, long modifiedMillis)
+            throws Exception {
+        writeLicense(file, scopeUid, feature);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modifiedMillis));
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 30_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < timeout) {
+            Thread.sleep(50);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    @Test
+    public void loadingDirectory() throws Exception {
+        Path directory = Files.createTempDirectory("licenses");
+        writeLicense(directory.resolve("a.license"), "directory-a", "a");
+        writeLicense(directory.resolve("b.license"), "directory-b", "b");
+        writeLicense(directory.resolve(".hidden"), "directory-hidden", "a");
+        Files.write(directory.resolve("broken.license"), "Invalid".getBytes(StandardCharsets.US_ASCII));
+
+        LicenseDirectoryLoader loader = new LicenseDirectoryLoader(licenseChecker, directory);
+        List<Path> failedFiles = new CopyOnWriteArrayList<>();
+        loader.setFailureHandler((file, failure) -> failedFiles.add(file));
+        loader.load();
+
+        assertTrue(licenseChecker.isLicensed("directory-a", "a"));
+        assertTrue(licenseChecker.isLicensed("directory-b", "b"));
+        assertFalse(licenseChecker.hasLicense("directory-hidden"));
+        assertEquals(1, failedFiles.size());
+        assertEquals(directory.resolve("broken.license").toAbsolutePath(), failedFiles.get(0));
+
+        Files.delete(directory.resolve("b.license"));
+        loader.load();
+        assertTrue(licenseChecker.hasLicense("directory-a"));
+        assertFalse(licenseChecker.hasLicense("directory-b"));
+    }
+
+    @Test
+    public void removingOneOfSeveralFilesOfAScope() throws Exception {
+        Path directory = Files.createTempDirectory("licenses");
+        long modified = System.currentTimeMillis() - 60_000;
+        writeLicense(directory.resolve("a.license"), "duplicate", "a", modified);
+        writeLicense(directory.resolve("b.license"), "duplicate", "b", modified + 1_000);
+        LicenseDirectoryLoader loader = new LicenseDirectoryLoader(licenseChecker, directory);
+        loader.load();
+        assertTrue(licenseChecker.isLicensed("duplicate", "b"));
+
+        Files.delete(directory.resolve("b.license"));
+        loader.load();
+        assertTrue(licenseChecker.isLicensed("duplicate", "a"));
+        assertFalse(licenseChecker.isLicensed("duplicate", "b"));
+
+        writeLicense(directory.resolve("b.license"), "duplicate", "b", modified + 2_000);
+        loader.load();
+        assertTrue(licenseChecker.isLicensed("duplicate", "b"));
+        writeLicense(directory.resolve("b.license"), "other", "b", modified + 3_000);
+        loader.load();
+        assertTrue(licenseChecker.isLicensed("duplicate", "a"));
+        assertTrue(licenseChecker.isLicensed("other", "b"));
+
+        Files.delete(directory.resolve("a.license"));
+        loader.load();
+        assertFalse(licenseChecker.hasLicense("duplicate"));
+    }
+
+    @Test
+    public void watchingDirectory() throws Exception {
+        Path directory = Files.createTempDirectory("licenses");
+        writeLicense(directory.resolve("a.license"), "watched-a", "a");
+
+        try (LicenseDirectoryLoader loader = new LicenseDirectoryLoader(licenseChecker, directory)) {
+            loader.watch();
+            assertTrue(licenseChecker.isLicensed("watched-a", "a"));
+
+            writeLicense(directory.resolve("b.license"), "watched-b", "b");
+            awaitCondition(() -> licenseChecker.isLicensed("watched-b", "b"));
+
+            writeLicense(directory.resolve("a.license"), "watched-a", "changed");
+            awaitCondition(() -> licenseChecker.isLicensed("watched-a", "changed"));
+
+            Files.delete(directory.resolve("a.license"));
+            awaitCondition(() -> !licenseChecker.hasLicense("watched-a"));
+            assertTrue(licenseChecker.hasLicense("watched-b"));
+        }
+    }
+}
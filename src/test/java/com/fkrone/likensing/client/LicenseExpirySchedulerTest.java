@@ -0,0 +1,156 @@
+package com.fkrone.likensing.client;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LicenseExpirySchedulerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2020, 6, 1);
+
+    private final AtomicLong currentDay = new AtomicLong(TODAY.toEpochDay());
+
+    private static LicenseData license(String scopeId, LocalDate validUntil) {
+        return new LicenseData(scopeId, FeatureSet.of(Collections.singletonList("feature")), validUntil);
+    }
+
+    @Test
+    public void listenersAreNotifiedOnceEventsAreDue() throws Exception {
+        LicenseChecker checker = LicenseChecker.createChecker(currentDay::get);
+        checker.getRegistry().publish(license("known", TODAY.plusDays(5)));
+        List<String> notifications = new ArrayList<>();
+
+        try (LicenseExpiryScheduler scheduler = new LicenseExpiryScheduler(checker, 3)) {
+            scheduler.addListener(new RecordingListener(notifications));
+            checker.getRegistry().publishAll(Arrays.asList(license("short", TODAY.plusDays(1)),
+                                                           license("expired", TODAY.minusDays(1))));
+
+            scheduler.runDueEvents();
+            assertEquals(Arrays.asList("expiring short", "expired expired"), notifications);
+
+            notifications.clear();
+            scheduler.runDueEvents();
+            assertTrue(notifications.isEmpty());
+
+            currentDay.set(TODAY.plusDays(3).toEpochDay());
+            scheduler.runDueEvents();
+            assertEquals(Arrays.asList("expired short", "expiring known"), notifications);
+
+            notifications.clear();
+            currentDay.set(TODAY.plusDays(6).toEpochDay());
+            scheduler.runDueEvents();
+            assertEquals(Collections.singletonList("expired known"), notifications);
+            assertTrue(checker.hasLicense("known"));
+        }
+    }
+
+    @Test
+    public void replacedAndRemovedLicensesAreNotReported() throws Exception {
+        LicenseChecker checker = LicenseChecker.createChecker(currentDay::get);
+        List<String> notifications = new ArrayList<>();
+
+        try (LicenseExpiryScheduler scheduler = new LicenseExpiryScheduler(checker, 0)) {
+            scheduler.addListener(new RecordingListener(notifications));
+            checker.getRegistry().publish(license("renewed", TODAY));
+            checker.getRegistry().publish(license("renewed", TODAY.plusDays(10)));
+            checker.getRegistry().publish(license("removed", TODAY));
+            checker.removeLicense("removed");
+
+            currentDay.set(TODAY.plusDays(1).toEpochDay());
+            scheduler.runDueEvents();
+            assertTrue(notifications.isEmpty());
+
+            currentDay.set(TODAY.plusDays(11).toEpochDay());
+            scheduler.runDueEvents();
+            assertEquals(Collections.singletonList("expired renewed"), notifications);
+        }
+    }
+
+    @Test
+    public void eachScopeKeepsOnlyTheEventsOfItsCurrentLicense() throws Exception {
+        LicenseChecker checker = LicenseChecker.createChecker(currentDay::get);
+        List<String> notifications = new ArrayList<>();
+
+        try (LicenseExpiryScheduler scheduler = new LicenseExpiryScheduler(checker, 3)) {
+            scheduler.addListener(new RecordingListener(notifications));
+            for (int i = 0; i < 100; i++) {
+                checker.getRegistry().publish(license("reimported", TODAY.plusDays(5)));
+                checker.getRegistry().publish(license("renewed", TODAY.plusDays(5 + i)));
+                checker.getRegistry().publish(license("removed", TODAY.plusDays(5)));
+                checker.removeLicense("removed");
+            }
+            assertEquals(2, scheduler.getScheduledScopeCount());
+            assertEquals(4, scheduler.getPendingEventCount());
+
+            currentDay.set(TODAY.plusDays(3).toEpochDay());
+            scheduler.runDueEvents();
+            assertEquals(Collections.singletonList("expiring reimported"), notifications);
+
+            notifications.clear();
+            currentDay.set(TODAY.plusDays(6).toEpochDay());
+            checker.getRegistry().publish(license("reimported", TODAY.plusDays(5)));
+            scheduler.runDueEvents();
+            checker.getRegistry().publish(license("reimported", TODAY.plusDays(5)));
+            scheduler.runDueEvents();
+            assertEquals(Collections.singletonList("expired reimported"), notifications);
+            assertEquals(2, scheduler.getPendingEventCount());
+        }
+    }
+
+    @Test
+    public void expiredLicensesCanBeEvicted() throws Exception {
+        LicenseChecker checker = LicenseChecker.createChecker(currentDay::get);
+        CountDownLatch expired = new CountDownLatch(1);
+
+        try (LicenseExpiryScheduler scheduler = new LicenseExpiryScheduler(checker, 0)) {
+            scheduler.setEvictExpiredLicenses(true);
+            scheduler.addListener(new LicenseExpiryListener() {
+                @Override
+                public void onLicenseExpiring(String scopeUid, LocalDate validUntil) {
+                }
+
+                @Override
+                public void onLicenseExpired(String scopeUid, LocalDate validUntil) {
+                    expired.countDown();
+                }
+            });
+            scheduler.start(1, TimeUnit.HOURS);
+
+            checker.getRegistry().publish(license("valid", TODAY));
+            checker.getRegistry().publish(license("expired", TODAY.minusDays(1)));
+            assertTrue(expired.await(10, TimeUnit.SECONDS));
+        }
+        assertTrue(checker.hasLicense("valid"));
+        assertFalse(checker.hasLicense("expired"));
+    }
+
+    private static class RecordingListener implements LicenseExpiryListener {
+
+        private final List<String> notifications;
+
+        RecordingListener(List<String> notifications) {
+            this.notifications = notifications;
+        }
+
+        @Override
+        public void onLicenseExpiring(String scopeUid, LocalDate validUntil) {
+            notifications.add("expiring " + scopeUid);
+        }
+
+        @Override
+        public void onLicenseExpired(String scopeUid, LocalDate validUntil) {
+            notifications.add("expired " + scopeUid);
+        }
+    }
+}
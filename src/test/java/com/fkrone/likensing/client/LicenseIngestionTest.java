@@ -0,0 +1,136 @@
+package com.fkrone.likensing.client;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LicenseIngestionTest {
+
+    private static final long VALID_UNTIL = System.currentTimeMillis() + 86_400_000L * 30;
+
+    private static KeyPair keyPair;
+
+    private LicenseChecker licenseChecker;
+
+    @BeforeClass
+    public static void setupKeys() throws Exception {
+        keyPair = TestLicenses.generateKeyPair();
+    }
+
+    @Before
+    public void setupChecker() throws Exception {
+        licenseChecker = LicenseChecker.createChecker(TestLicenses.encodePublicKey(keyPair));
+    }
+
+    private static byte[] bytes(String license) {
+        return license.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    public void importingBytesAndBuffers() throws Exception {
+        licenseChecker.importLicense(bytes(TestLicenses.createLicense(keyPair, "bytes", VALID_UNTIL, "a") + "\n"));
+        assertTrue(licenseChecker.isLicensed("bytes", "a"));
+
+        byte[] license = bytes(TestLicenses.createLicense(keyPair, "buffer", VALID_UNTIL, "b"));
+        ByteBuffer buffer = ByteBuffer.allocateDirect(license.length + 10);
+        buffer.put(new byte[5]).put(license).put(new byte[5]);
+        buffer.position(5).limit(5 + license.length);
+        licenseChecker.importLicense(buffer);
+        assertTrue(licenseChecker.isLicensed("buffer", "b"));
+        assertEquals(5, buffer.position());
+    }
+
+    @Test
+    public void stringsAndBytesAreDecodedAlike() throws Exception {
+        String license = TestLicenses.createLicense(keyPair, "wrapped", VALID_UNTIL, "a");
+        String wrappedLicense = license.substring(0, 76) + "\r\n" + license.substring(76);
+        licenseChecker.importLicense(wrappedLicense);
+        assertTrue(licenseChecker.isLicensed("wrapped", "a"));
+
+        // the cache keys of both forms are equal, so either form must be accepted regardless of the other
+        LicenseChecker otherChecker = LicenseChecker.createChecker(TestLicenses.encodePublicKey(keyPair));
+        otherChecker.importLicense(bytes(wrappedLicense));
+        otherChecker.removeLicense("wrapped");
+        otherChecker.importLicense(wrappedLicense);
+        assertTrue(otherChecker.isLicensed("wrapped", "a"));
+    }
+
+    @Test
+    public void importingStreamsInBothParsingModes() throws Exception {
+        for (LicenseParsingMode parsingMode : LicenseParsingMode.values()) {
+            licenseChecker.setParsingMode(parsingMode);
+            AtomicBoolean closed = new AtomicBoolean();
+            String license = TestLicenses.createLicense(keyPair, "stream", VALID_UNTIL, "c");
+            try {
+                licenseChecker.importLicense(new ByteArrayInputStream(bytes(license)) {
+                    @Override
+                    public void close() {
+                        closed.set(true);
+                    }
+                });
+            } catch (SecurityException e) {
+                // the DOM mode re-serializes the licensed properties with indentation on newer JDKs
+                assertEquals(LicenseParsingMode.DOM, parsingMode);
+                continue;
+            }
+            assertTrue(licenseChecker.isLicensed("stream", "c"));
+            assertFalse(closed.get());
+        }
+    }
+
+    @Test
+    public void importingFiles() throws Exception {
+        Path directory = Files.createTempDirectory("licenses");
+        String[] features = new String[4000];
+        for (int i = 0; i < features.length; i++) {
+            features[i] = "some.rather.long.feature.name." + i;
+        }
+        Path largeFile = Files.write(directory.resolve("large.license"),
+                                     bytes(TestLicenses.createLicense(keyPair, "large", VALID_UNTIL, features)));
+        assertTrue(Files.size(largeFile) > 64 * 1024);
+        Path smallFile = Files.write(directory.resolve("small.license"),
+                                     bytes(TestLicenses.createLicense(keyPair, "small", VALID_UNTIL, "d")));
+        Path invalidFile = Files.write(directory.resolve("invalid.license"), bytes("Invalid"));
+
+        licenseChecker.importLicense(smallFile);
+        assertTrue(licenseChecker.isLicensed("small", "d"));
+
+        List<LicenseImportResult> results =
+                licenseChecker.importLicenseFiles(Arrays.asList(largeFile, invalidFile, directory.resolve("missing")));
+        assertTrue(results.get(0).isSuccessful());
+        assertFalse(results.get(1).isSuccessful());
+        assertFalse(results.get(2).isSuccessful());
+        assertTrue(licenseChecker.isLicensed("large", features[features.length - 1]));
+    }
+
+    @Test
+    public void bytesAndStringsShareVerifiedLicenses() throws Exception {
+        String license = TestLicenses.createLicense(keyPair, "cached", VALID_UNTIL, "e");
+        licenseChecker.importLicense(license);
+        licenseChecker.importLicense(bytes(license));
+        licenseChecker.importLicense(ByteBuffer.wrap(bytes(license)));
+
+        LicenseCacheStatistics statistics = licenseChecker.getVerificationCacheStatistics();
+        assertEquals(2, statistics.getHits());
+        assertEquals(1, statistics.getMisses());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void importingEmptyBuffer() throws Exception {
+        licenseChecker.importLicense(ByteBuffer.allocate(0));
+    }
+}
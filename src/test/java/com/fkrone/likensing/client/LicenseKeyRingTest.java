@@ -0,0 +1,128 @@
+package com.fkrone.likensing.client;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.security.KeyPair;
+import java.security.SignatureException;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LicenseKeyRingTest {
+
+    private static final long VALID_UNTIL = System.currentTimeMillis() + 86_400_000L * 30;
+
+    private static KeyPair oldKeyPair;
+    private static KeyPair newKeyPair;
+
+    @BeforeClass
+    public static void setupKeys() throws Exception {
+        oldKeyPair = TestLicenses.generateKeyPair();
+        newKeyPair = TestLicenses.generateKeyPair();
+    }
+
+    @Test
+    public void licensesAreVerifiedWithTheKeyTheyName() throws Exception {
+        LicenseChecker checker = LicenseChecker.createChecker(TestLicenses.encodePublicKey(oldKeyPair),
+                                                              TestLicenses.encodePublicKey(newKeyPair));
+        String oldKeyId = LicenseKeyRing.computeKeyId(oldKeyPair.getPublic());
+        String newKeyId = LicenseKeyRing.computeKeyId(newKeyPair.getPublic());
+        assertEquals(new HashSet<>(Arrays.asList(oldKeyId, newKeyId)), checker.getKeyIds());
+        assertEquals(oldKeyId, checker.getDefaultKeyId());
+
+        checker.importLicense(TestLicenses.createLicense(oldKeyPair, "old", VALID_UNTIL, "feature"));
+        checker.importLicense(TestLicenses.createLicenseForKey(newKeyPair, newKeyId, "new", VALID_UNTIL, "feature"));
+        assertTrue(checker.isLicensed("old", "feature"));
+        assertTrue(checker.isLicensed("new", "feature"));
+
+        assertForged(checker, TestLicenses.createLicenseForKey(newKeyPair, oldKeyId, "forged", VALID_UNTIL));
+        assertForged(checker, TestLicenses.createLicense(newKeyPair, "forged", VALID_UNTIL));
+        assertForged(checker, TestLicenses.createLicenseForKey(newKeyPair, "unknown", "forged", VALID_UNTIL));
+        assertFalse(checker.hasLicense("forged"));
+    }
+
+    @Test
+    public void documentParsingUsesTheKeyTheLicenseNames() throws Exception {
+        LicenseChecker checker = LicenseChecker.createChecker(TestLicenses.encodePublicKey(oldKeyPair));
+        checker.setParsingMode(LicenseParsingMode.DOM);
+        checker.addKey("rotated", TestLicenses.encodePublicKey(newKeyPair));
+
+        // the DOM mode re-serializes the properties with indentation, so only the key selection can be verified
+        assertForged(checker, TestLicenses.createLicenseForKey(oldKeyPair, "rotated", "scope", VALID_UNTIL));
+        try {
+            checker.importLicense(TestLicenses.createLicenseForKey(oldKeyPair, "unknown", "scope", VALID_UNTIL));
+            fail("Expected the license to be rejected.");
+        } catch (SignatureException e) {
+            assertTrue(e.getCause().getMessage().contains("unknown"));
+        }
+    }
+
+    @Test
+    public void rotatingKeys() throws Exception {
+        LicenseChecker checker = LicenseChecker.createChecker(TestLicenses.encodePublicKey(oldKeyPair));
+        String oldLicense = TestLicenses.createLicense(oldKeyPair, "scope", VALID_UNTIL, "old");
+        checker.importLicense(oldLicense);
+
+        String newKeyId = checker.addKey(TestLicenses.encodePublicKey(newKeyPair));
+        checker.setDefaultKey(newKeyId);
+        checker.removeKey(LicenseKeyRing.computeKeyId(oldKeyPair.getPublic()));
+        assertEquals(newKeyId, checker.getDefaultKeyId());
+        assertTrue(checker.isLicensed("scope", "old"));
+
+        // the license verified with the removed key must not be taken from the verification cache
+        assertForged(checker, oldLicense);
+        checker.importLicense(TestLicenses.createLicense(newKeyPair, "scope", VALID_UNTIL, "new"));
+        assertTrue(checker.isLicensed("scope", "new"));
+
+        checker.removeKey(newKeyId);
+        assertNull(checker.getDefaultKeyId());
+        assertForged(checker, TestLicenses.createLicense(newKeyPair, "scope", VALID_UNTIL, "new"));
+    }
+
+    @Test
+    public void createdCheckersAreIndependentOfTheGlobalChecker() throws Exception {
+        LicenseChecker.initLicenseChecker(TestLicenses.encodePublicKey(oldKeyPair));
+        LicenseChecker globalChecker = LicenseChecker.getChecker();
+        LicenseChecker checker = LicenseChecker.createChecker();
+        assertTrue(checker.getKeyIds().isEmpty());
+
+        assertForged(checker, TestLicenses.createLicense(oldKeyPair, "scope", VALID_UNTIL));
+        globalChecker.importLicense(TestLicenses.createLicense(oldKeyPair, "scope", VALID_UNTIL));
+        assertTrue(globalChecker.hasLicense("scope"));
+        assertFalse(checker.hasLicense("scope"));
+        assertEquals(globalChecker, LicenseChecker.getChecker());
+    }
+
+    @Test
+    public void reinitializingTheGlobalCheckerKeepsItsLicenses() throws Exception {
+        LicenseChecker.initLicenseChecker(TestLicenses.encodePublicKey(oldKeyPair));
+        LicenseChecker.getChecker().importLicense(TestLicenses.createLicense(oldKeyPair, "kept", VALID_UNTIL, "a"));
+
+        LicenseChecker.initLicenseChecker(TestLicenses.encodePublicKey(newKeyPair));
+        LicenseChecker checker = LicenseChecker.getChecker();
+        assertTrue(checker.isLicensed("kept", "a"));
+        assertForged(checker, TestLicenses.createLicense(oldKeyPair, "other", VALID_UNTIL));
+
+        checker.removeLicense("kept");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void settingUnknownDefaultKey() throws Exception {
+        LicenseChecker.createChecker(TestLicenses.encodePublicKey(oldKeyPair)).setDefaultKey("unknown");
+    }
+
+    private static void assertForged(LicenseChecker checker, String license) throws Exception {
+        try {
+            checker.importLicense(license);
+            fail("Expected the license to be rejected.");
+        } catch (SignatureException | SecurityException e) {
+            // a license which names an unknown key or does not match its key is rejected
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.fkrone.likensing.client;
+
+import org.junit.Test;
+
+import java.security.KeyPair;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LicenseMetricsTest {
+
+    @Test
+    public void recordingChecksAndImports() throws Exception {
+        KeyPair keyPair = TestLicenses.generateKeyPair();
+        LicenseChecker.initLicenseChecker(TestLicenses.encodePublicKey(keyPair));
+        LicenseChecker licenseChecker = LicenseChecker.getChecker();
+        LicenseMetrics metrics = new LicenseMetrics();
+        licenseChecker.setMetricsListener(metrics);
+
+        String license = TestLicenses.createLicense(keyPair, "metrics", 4102354800000L, "a");
+        licenseChecker.importLicense(license);
+        licenseChecker.importLicense(license);
+        licenseChecker.importLicense(TestLicenses.createLicense(keyPair, "metrics-expired", 0, "a"));
+
+        licenseChecker.isLicensed("metrics", "a");
+        licenseChecker.isLicensed("metrics", Feature.of("a"));
+        licenseChecker.isLicensed("metrics", "b");
+        licenseChecker.isLicensed("metrics-unknown", "a");
+        licenseChecker.isLicensed("metrics-expired", "a");
+
+        LicenseMetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.getCheckCount(LicenseCheckOutcome.LICENSED));
+        assertEquals(1, snapshot.getCheckCount(LicenseCheckOutcome.FEATURE_NOT_LICENSED));
+        assertEquals(1, snapshot.getCheckCount(LicenseCheckOutcome.UNKNOWN_SCOPE));
+        assertEquals(1, snapshot.getCheckCount(LicenseCheckOutcome.EXPIRED));
+        assertEquals(5, snapshot.getTotalCheckCount());
+
+        // the second import of the same license is served by the verification cache
+        assertEquals(3, snapshot.getStageLatency(LicenseImportStage.IMPORT).getCount());
+        assertEquals(2, snapshot.getStageLatency(LicenseImportStage.DECODE).getCount());
+        assertEquals(2, snapshot.getStageLatency(LicenseImportStage.PARSE).getCount());
+        assertEquals(2, snapshot.getStageLatency(LicenseImportStage.VERIFY).getCount());
+        assertTrue(snapshot.getStageLatency(LicenseImportStage.VERIFY).getTotalNanos() > 0);
+
+        licenseChecker.setMetricsListener(null);
+        licenseChecker.isLicensed("metrics", "a");
+        assertEquals(5, metrics.snapshot().getTotalCheckCount());
+    }
+
+    @Test
+    public void computingPercentiles() {
+        LicenseMetrics metrics = new LicenseMetrics();
+        for (int i = 0; i < 99; i++) {
+            metrics.onImportStage(LicenseImportStage.VERIFY, 1000);
+        }
+        metrics.onImportStage(LicenseImportStage.VERIFY, 1_000_000);
+
+        LicenseMetricsSnapshot.StageLatency latency = metrics.snapshot().getStageLatency(LicenseImportStage.VERIFY);
+        assertEquals(100, latency.getCount());
+        assertEquals(1_000_000, latency.getMaxNanos());
+        assertEquals(10_990, latency.getMeanNanos());
+        // 1000ns falls into the bucket of durations from 512ns to 1023ns
+        assertEquals(1023, latency.getPercentileNanos(50));
+        assertEquals(1023, latency.getPercentileNanos(99));
+        assertEquals(1_000_000, latency.getPercentileNanos(100));
+        assertEquals(0, metrics.snapshot().getStageLatency(LicenseImportStage.PARSE).getPercentileNanos(50));
+    }
+}
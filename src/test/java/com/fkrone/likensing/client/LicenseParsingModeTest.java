@@ -0,0 +1,191 @@
+package com.fkrone.likensing.client;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.w3c.dom.Node;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs the same licenses through {@link LicenseParsingMode#STREAMING} and {@link LicenseParsingMode#DOM}.
+ * <p>
+ * Each license is signed once in the canonical form verified by the streaming parser and once in the form the
+ * transformer of the running Java version produces, which is verified by the DOM based parser. Whether the latter
+ * is the canonical form depends on the Java version, so it is determined up front.
+ */
+public class LicenseParsingModeTest {
+
+    private static final String SIGNATURE_MISMATCH = "SecurityException";
+    private static final String PARSING_FAILED = "IllegalArgumentException";
+
+    private static KeyPair keyPair;
+    private static LicenseParser streamingParser;
+    private static LicenseParser domParser;
+    private static boolean transformerProducesCanonicalForm;
+
+    @BeforeClass
+    public static void setupParsers() throws Exception {
+        keyPair = TestLicenses.generateKeyPair();
+        streamingParser = new LicenseParser(keyPair.getPublic(), LicenseParsingMode.STREAMING);
+        domParser = new LicenseParser(keyPair.getPublic(), LicenseParsingMode.DOM);
+
+        String properties = properties("<feature>a</feature>\n");
+        transformerProducesCanonicalForm = transform("", properties).equals(properties + "\n");
+    }
+
+    private static String properties(String features) {
+        return "<licensedProperties>\n<licensedFeatures>\n"
+               + features
+               + "</licensedFeatures>\n<validUntil>4102354800000</validUntil>\n<scopeUid>scope</scopeUid>\n"
+               + "</licensedProperties>";
+    }
+
+    private static String encode(String doctype, String properties, String signKey) {
+        String license = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                         + doctype
+                         + "<license>\n"
+                         + properties
+                         + "\n<signKey>"
+                         + signKey
+                         + "</signKey>\n</license>\n";
+        return Base64.getEncoder().encodeToString(license.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String transform(String doctype, String properties) throws Exception {
+        Node licensedProperties = domParser.parseLicenseXML(encode(doctype, properties, ""))
+                                           .getElementsByTagName("licensedProperties")
+                                           .item(0);
+        return new String(domParser.nodeToBytes(licensedProperties), StandardCharsets.UTF_8);
+    }
+
+    private static String signedInCanonicalForm(String doctype, String properties, String canonicalForm)
+            throws Exception {
+        return encode(doctype, properties, TestLicenses.sign(keyPair, canonicalForm + "\n"));
+    }
+
+    private static String signedAsTransformed(String doctype, String properties) throws Exception {
+        return encode(doctype, properties, TestLicenses.sign(keyPair, transform(doctype, properties)));
+    }
+
+    private static String outcome(LicenseParser parser, String license) {
+        try {
+            LicenseData licenseData = parser.parseLicense(license);
+            return licenseData.getScopeId() + " " + new TreeSet<>(licenseData.getLicensedFeatures().getNames());
+        } catch (Exception e) {
+            return e.getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * Returns the outcome expected for a license which is verified against the form produced by the other mode.
+     */
+    private static String unlessSignedInOtherForm(String outcome) {
+        return transformerProducesCanonicalForm ? outcome : SIGNATURE_MISMATCH;
+    }
+
+    /**
+     * Expects both modes to yield the given outcome once they verified a license signed in their form.
+     */
+    private static void assertVerifiedOutcome(String properties, String canonicalForm, String outcome)
+            throws Exception {
+        String canonicalLicense = signedInCanonicalForm("", properties, canonicalForm);
+        String transformedLicense = signedAsTransformed("", properties);
+
+        assertEquals(outcome, outcome(streamingParser, canonicalLicense));
+        assertEquals(outcome, outcome(domParser, transformedLicense));
+        assertEquals(unlessSignedInOtherForm(outcome), outcome(domParser, canonicalLicense));
+        assertEquals(unlessSignedInOtherForm(outcome), outcome(streamingParser, transformedLicense));
+    }
+
+    /**
+     * Expects both modes to yield the given outcome no matter which form they verify.
+     */
+    private static void assertSameOutcome(String license, String outcome) {
+        assertEquals(outcome, outcome(streamingParser, license));
+        assertEquals(outcome, outcome(domParser, license));
+    }
+
+    @Test
+    public void validLicensesAreAccepted() throws Exception {
+        String properties = properties("<feature>a</feature>\n<feature>b &amp; c</feature>\n");
+        assertVerifiedOutcome(properties, properties, "scope [a, b & c]");
+    }
+
+    @Test
+    public void licensesOfTheLikensingServerAreOnlyAcceptedInTheirForm() throws Exception {
+        byte[] encodedKey = Base64.getDecoder().decode(LicenseParsingTest.PUBLIC_KEY);
+        PublicKey publicKey = KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(encodedKey));
+        LicenseParser streamingServerParser = new LicenseParser(publicKey, LicenseParsingMode.STREAMING);
+        LicenseParser domServerParser = new LicenseParser(publicKey, LicenseParsingMode.DOM);
+
+        assertEquals("testscope [test1, test3]", outcome(streamingServerParser, LicenseParsingTest.VALID_LICENSE));
+        assertEquals(unlessSignedInOtherForm("testscope [test1, test3]"),
+                     outcome(domServerParser, LicenseParsingTest.VALID_LICENSE));
+    }
+
+    @Test
+    public void markupIsVerifiedInItsCanonicalForm() throws Exception {
+        String properties = properties("<!-- comment -->\n<feature b=\"2\" a=\"1\">a</feature>\n"
+                                       + "<feature><![CDATA[c & d]]></feature>\n<feature></feature>\n");
+        String canonicalForm = properties.replace("b=\"2\" a=\"1\"", "a=\"1\" b=\"2\"")
+                                         .replace("<feature></feature>", "<feature/>");
+        assertVerifiedOutcome(properties, canonicalForm, "scope [a, c & d]");
+    }
+
+    @Test
+    public void nestedFeaturesAreAllRead() throws Exception {
+        String properties = properties("<feature>a<feature>b</feature></feature>\n")
+                .replace("<validUntil>", "<feature>outside</feature>\n<validUntil>");
+        assertVerifiedOutcome(properties, properties, "scope [ab, b]");
+    }
+
+    @Test
+    public void missingPropertiesAreRejectedAfterVerification() throws Exception {
+        String properties = properties("").replace("<scopeUid>scope</scopeUid>\n", "");
+        assertVerifiedOutcome(properties, properties, PARSING_FAILED);
+    }
+
+    @Test
+    public void tamperedLicensesAreRejected() throws Exception {
+        String properties = properties("<feature>a</feature>\n");
+        String signedProperties = properties("<feature>b</feature>\n");
+        assertSameOutcome(signedInCanonicalForm("", properties, signedProperties), SIGNATURE_MISMATCH);
+        String signKey = TestLicenses.sign(keyPair, transform("", signedProperties));
+        assertSameOutcome(encode("", properties, signKey), SIGNATURE_MISMATCH);
+    }
+
+    @Test
+    public void invalidSignKeysAreRejected() {
+        assertSameOutcome(encode("", properties(""), "Invalid"), "SignatureException");
+    }
+
+    @Test
+    public void malformedLicensesAreRejected() {
+        assertSameOutcome(encode("", "<licensedProperties>\n<licensedFeatures>\n", "Invalid"),
+                                        PARSING_FAILED);
+        assertSameOutcome(encode("", properties("") + "\n" + properties(""), "Invalid"),
+                                        PARSING_FAILED);
+    }
+
+    @Test
+    public void entitiesDeclaredInTheDocumentTypeAreOnlyResolvedByTheDom() throws Exception {
+        String doctype = "<!DOCTYPE license [<!ENTITY edition \"enterprise\">]>";
+        String properties = properties("<feature>&edition;</feature>\n");
+        String canonicalForm = properties.replace("&edition;", "enterprise");
+        String canonicalLicense = signedInCanonicalForm(doctype, properties, canonicalForm);
+
+        // document type declarations are not processed when streaming
+        assertEquals(PARSING_FAILED, outcome(streamingParser, canonicalLicense));
+        assertEquals(PARSING_FAILED, outcome(streamingParser, signedAsTransformed(doctype, properties)));
+        assertEquals("scope [enterprise]", outcome(domParser, signedAsTransformed(doctype, properties)));
+        assertEquals(unlessSignedInOtherForm("scope [enterprise]"), outcome(domParser, canonicalLicense));
+    }
+}
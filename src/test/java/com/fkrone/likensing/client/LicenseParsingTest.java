@@ -10,19 +10,29 @@ import static org.junit.Assert.assertTrue;
 
 public class LicenseParsingTest {
 
+    /**
+     * Contains the public key the licenses of this test were signed with.
+     */
+    static final String PUBLIC_KEY =
+            "MIIBIjANBgkqhkiG9w0BAQEFAAOCAQ8AMIIBCgKCAQEAi74pE2wrMJLRESst3v3iwSYbbrtZNJbbGR+aAdlNeaM3ZW5KaVPhj8Z5HVboiFnzDT4yu8O9c6HX5AiKbd3OxkZxZGpXkv1xnQimKLcfdI2o1+aamBdzr37wWC/8/WJvew/EuAG7x9HTzpO9XrMh64LIP2Mk6QQkrRdgFdiyq5CZDDh0zHAW2Cz55l1NGUb/U9X5nKLyL9Fon49lbixqULsAkKMKWlQMLWiGFwOAI1U/RQ19QD1aMG4YTL/wrqPvkUkpy8E1wEe57WMuLFFMffj5dnfK3MLw+mtRFqQlJh6TYohUIbVdqvCtBWM8MLa0bfZnMhyOnmcIn8WRrE+IWwIDAQAB";
+
+    /**
+     * Contains a license for the scope <tt>testscope</tt> licensing the features <tt>test1</tt> and <tt>test3</tt>.
+     */
+    static final String VALID_LICENSE =
+            "PD94bWwgdmVyc2lvbj0iMS4wIiBlbmNvZGluZz0iVVRGLTgiPz48bGljZW5zZT4KPGxpY2Vuc2VkUHJvcGVydGllcz4KPGxpY2Vuc2VkRmVhdHVyZXM+CjxmZWF0dXJlPnRlc3QxPC9mZWF0dXJlPgo8ZmVhdHVyZT50ZXN0MzwvZmVhdHVyZT4KPC9saWNlbnNlZEZlYXR1cmVzPgo8dmFsaWRVbnRpbD40MTAyMzU0ODAwMDAwPC92YWxpZFVudGlsPgo8c2NvcGVVaWQ+dGVzdHNjb3BlPC9zY29wZVVpZD4KPC9saWNlbnNlZFByb3BlcnRpZXM+CjxzaWduS2V5PlNRWnkrNGxQdXBET05ubWFDNmRRUUJyYnJoU01WTmtwMHBMYitEUUcwZmN2d0gzYzgyM3JZcThXRGswWldSV3ZDMWozOGJNOGRGNmQ4YUphaGFCbDNqcUNJRndyU2E4STR5aTJ6ME1jUXo5VzVvRm9vaWtmNXlzTG5iT0xZTTdwQXNEL2YzSVlBYXdxdXgrYUNjeGF5ZEhjK2t4MWROMThIbURJY2sydTV4MHU4dFhwejJ0bG94Z1haaUVqUVpTeFB0NUdSbGMrK1BMQ3F5Z3d0REMzNkI5NUFVYkJoLzZuOFh2LzNhZis2YTAvMGMrYmhaQmpBNjMwSGszZTJLVFU4UkJBL1VXTzdZbTdLdzI5MnFKOHVhU2JrVGh5akp6dFFrYlM0eVJwbWlmdUVGYVdETVBVZkdpRXFrY1BRM05LQXJCejF5cm5WYXJnY1RVNS84VHpaZz09PC9zaWduS2V5Pgo8L2xpY2Vuc2U+Cg==";
+
     private static LicenseChecker licenseChecker;
 
     @BeforeClass
     public static void setupChecker() throws Exception {
-        LicenseChecker.initLicenseChecker(
-                "MIIBIjANBgkqhkiG9w0BAQEFAAOCAQ8AMIIBCgKCAQEAi74pE2wrMJLRESst3v3iwSYbbrtZNJbbGR+aAdlNeaM3ZW5KaVPhj8Z5HVboiFnzDT4yu8O9c6HX5AiKbd3OxkZxZGpXkv1xnQimKLcfdI2o1+aamBdzr37wWC/8/WJvew/EuAG7x9HTzpO9XrMh64LIP2Mk6QQkrRdgFdiyq5CZDDh0zHAW2Cz55l1NGUb/U9X5nKLyL9Fon49lbixqULsAkKMKWlQMLWiGFwOAI1U/RQ19QD1aMG4YTL/wrqPvkUkpy8E1wEe57WMuLFFMffj5dnfK3MLw+mtRFqQlJh6TYohUIbVdqvCtBWM8MLa0bfZnMhyOnmcIn8WRrE+IWwIDAQAB");
+        LicenseChecker.initLicenseChecker(PUBLIC_KEY);
         licenseChecker = LicenseChecker.getChecker();
     }
 
     @Test
     public void parsingValidLicense() throws Exception {
-        licenseChecker.importLicense(
-                "PD94bWwgdmVyc2lvbj0iMS4wIiBlbmNvZGluZz0iVVRGLTgiPz48bGljZW5zZT4KPGxpY2Vuc2VkUHJvcGVydGllcz4KPGxpY2Vuc2VkRmVhdHVyZXM+CjxmZWF0dXJlPnRlc3QxPC9mZWF0dXJlPgo8ZmVhdHVyZT50ZXN0MzwvZmVhdHVyZT4KPC9saWNlbnNlZEZlYXR1cmVzPgo8dmFsaWRVbnRpbD40MTAyMzU0ODAwMDAwPC92YWxpZFVudGlsPgo8c2NvcGVVaWQ+dGVzdHNjb3BlPC9zY29wZVVpZD4KPC9saWNlbnNlZFByb3BlcnRpZXM+CjxzaWduS2V5PlNRWnkrNGxQdXBET05ubWFDNmRRUUJyYnJoU01WTmtwMHBMYitEUUcwZmN2d0gzYzgyM3JZcThXRGswWldSV3ZDMWozOGJNOGRGNmQ4YUphaGFCbDNqcUNJRndyU2E4STR5aTJ6ME1jUXo5VzVvRm9vaWtmNXlzTG5iT0xZTTdwQXNEL2YzSVlBYXdxdXgrYUNjeGF5ZEhjK2t4MWROMThIbURJY2sydTV4MHU4dFhwejJ0bG94Z1haaUVqUVpTeFB0NUdSbGMrK1BMQ3F5Z3d0REMzNkI5NUFVYkJoLzZuOFh2LzNhZis2YTAvMGMrYmhaQmpBNjMwSGszZTJLVFU4UkJBL1VXTzdZbTdLdzI5MnFKOHVhU2JrVGh5akp6dFFrYlM0eVJwbWlmdUVGYVdETVBVZkdpRXFrY1BRM05LQXJCejF5cm5WYXJnY1RVNS84VHpaZz09PC9zaWduS2V5Pgo8L2xpY2Vuc2U+Cg==");
+        licenseChecker.importLicense(VALID_LICENSE);
 
         assertTrue(licenseChecker.hasLicense("testscope"));
         assertFalse(licenseChecker.isLicensed("testscope", "test2"));
@@ -0,0 +1,132 @@
+package com.fkrone.likensing.client;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LicenseRegistryTest {
+
+    private static LicenseData license(String scopeId, String... features) {
+        return new LicenseData(scopeId, FeatureSet.of(Arrays.asList(features)), LocalDate.now().plusDays(1));
+    }
+
+    @Test
+    public void publishAndRemove() {
+        LicenseRegistry registry = new LicenseRegistry();
+        LicenseData first = license("scope", "feature");
+        registry.publish(first);
+        assertSame(first, registry.get("scope"));
+
+        LicenseData second = license("scope", "other");
+        registry.publish(second);
+        assertSame(second, registry.get("scope"));
+
+        registry.remove("scope");
+        assertNull(registry.get("scope"));
+    }
+
+    @Test
+    public void compactStorageSharesFeatureSets() {
+        LicenseRegistry registry = new LicenseRegistry();
+        LicenseData standard = license("standard", "a", "b");
+        registry.publish(standard);
+        registry.setStorageMode(LicenseStorageMode.COMPACT);
+        assertSame(standard, registry.get("standard"));
+
+        registry.publishAll(Arrays.asList(license("first", "a", "b"),
+                                          license("second", "b", "a"),
+                                          license("other", "a", "reporting.*")));
+        registry.publish(license("third", "a", "b"));
+        FeatureSet shared = registry.get("first").getLicensedFeatures();
+        assertSame(shared, registry.get("second").getLicensedFeatures());
+        assertSame(shared, registry.get("third").getLicensedFeatures());
+        assertFalse(shared == registry.get("other").getLicensedFeatures());
+        assertTrue(registry.get("other").getLicensedFeatures().contains("reporting.sales"));
+        assertEquals(5, registry.snapshot().size());
+
+        registry.remove("first");
+        assertNull(registry.get("first"));
+        assertTrue(registry.remove("second", registry.get("second")));
+        registry.setStorageMode(LicenseStorageMode.STANDARD);
+        assertEquals(new HashSet<>(Arrays.asList("standard", "third", "other")), registry.snapshot().keySet());
+    }
+
+    @Test
+    public void snapshotsAreNotAffectedByLaterUpdates() {
+        LicenseRegistry registry = new LicenseRegistry();
+        registry.publish(license("a"));
+        Map<String, LicenseData> snapshot = registry.snapshot();
+
+        registry.publishAll(Arrays.asList(license("b"), license("c")));
+        registry.remove("a");
+
+        assertEquals(1, snapshot.size());
+        assertNotNull(snapshot.get("a"));
+        assertEquals(2, registry.snapshot().size());
+        assertNull(registry.get("a"));
+    }
+
+    @Test
+    public void concurrentReadersSeeConsistentLicensesWhileImporting() throws Exception {
+        LicenseRegistry registry = new LicenseRegistry();
+        registry.publish(license("stable", "feature"));
+        Feature feature = Feature.of("feature");
+
+        int readers = Math.max(2, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(readers + 1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch started = new CountDownLatch(readers);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < readers; i++) {
+                results.add(executor.submit(() -> {
+                    started.countDown();
+                    boolean consistent = true;
+                    while (running.get()) {
+                        LicenseData data = registry.get("stable");
+                        consistent &= data != null && data.getLicensedFeatures().contains(feature);
+                        LicenseData volatileData = registry.get("volatile");
+                        consistent &= volatileData == null || "volatile".equals(volatileData.getScopeId());
+                    }
+                    return consistent;
+                }));
+            }
+
+            started.await(10, TimeUnit.SECONDS);
+            for (int i = 0; i < 10_000; i++) {
+                registry.publish(license("scope" + (i % 100)));
+                registry.publish(license("volatile", "feature"));
+                registry.remove("volatile");
+            }
+            registry.publishAll(Collections.singletonList(license("stable", "feature")));
+            running.set(false);
+
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(101, registry.snapshot().size());
+            assertFalse(registry.snapshot().containsKey("volatile"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.fkrone.likensing.client;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LicenseSnapshotTest {
+
+    private static final long VALID_UNTIL = 4102354800000L;
+    private static final byte[] SNAPSHOT_KEY = "snapshot-secret".getBytes(StandardCharsets.UTF_8);
+
+    private static KeyPair keyPair;
+    private static LicenseChecker licenseChecker;
+
+    @BeforeClass
+    public static void setupChecker() throws Exception {
+        keyPair = TestLicenses.generateKeyPair();
+        LicenseChecker.initLicenseChecker(TestLicenses.encodePublicKey(keyPair));
+        licenseChecker = LicenseChecker.getChecker();
+        licenseChecker.setVerificationCacheCapacity(0);
+    }
+
+    @Test
+    public void importingWithSnapshot() throws Exception {
+        Path snapshotFile = Files.createTempDirectory("snapshot").resolve("licenses.snapshot");
+        String firstLicense = TestLicenses.createLicense(keyPair, "snapshot-a", VALID_UNTIL, "a", "b");
+        String secondLicense = TestLicenses.createLicense(keyPair, "snapshot-b", VALID_UNTIL, "c");
+
+        licenseChecker.importLicenses(Arrays.asList(firstLicense, secondLicense), snapshotFile, SNAPSHOT_KEY);
+        Map<ByteBuffer, LicenseData> snapshot = LicenseSnapshot.read(snapshotFile, SNAPSHOT_KEY);
+        assertEquals(2, snapshot.size());
+
+        // licenses taken from the snapshot are not parsed, so an unparseable license with a known digest is accepted
+        LicenseKeyRing keyRing = LicenseKeyRing.of(keyPair.getPublic());
+        snapshot.put(new VerifiedLicenseCache().computeKey(keyRing, "Invalid"),
+                     snapshot.get(new VerifiedLicenseCache().computeKey(keyRing, firstLicense)));
+        LicenseSnapshot.write(snapshotFile, SNAPSHOT_KEY, snapshot);
+        licenseChecker.removeLicense("snapshot-a");
+
+        List<LicenseImportResult> results =
+                licenseChecker.importLicenses(Arrays.asList("Invalid", secondLicense), snapshotFile, SNAPSHOT_KEY);
+        assertTrue(results.get(0).isSuccessful());
+        assertTrue(licenseChecker.isLicensed("snapshot-a", "b"));
+        assertTrue(licenseChecker.isLicensed("snapshot-b", "c"));
+        assertEquals(2, LicenseSnapshot.read(snapshotFile, SNAPSHOT_KEY).size());
+    }
+
+    @Test
+    public void ignoringTamperedSnapshot() throws Exception {
+        Path snapshotFile = Files.createTempDirectory("snapshot").resolve("licenses.snapshot");
+        String license = TestLicenses.createLicense(keyPair, "tampered", VALID_UNTIL, "a");
+        licenseChecker.importLicenses(Arrays.asList(license), snapshotFile, SNAPSHOT_KEY);
+
+        byte[] content = Files.readAllBytes(snapshotFile);
+        content[content.length / 2] ^= 1;
+        Files.write(snapshotFile, content);
+        assertTrue(LicenseSnapshot.read(snapshotFile, SNAPSHOT_KEY).isEmpty());
+
+        assertTrue(LicenseSnapshot.read(snapshotFile, "other".getBytes(StandardCharsets.UTF_8)).isEmpty());
+
+        List<LicenseImportResult> results =
+                licenseChecker.importLicenses(Arrays.asList(license, "Invalid"), snapshotFile, SNAPSHOT_KEY);
+        assertTrue(results.get(0).isSuccessful());
+        assertFalse(results.get(1).isSuccessful());
+        assertEquals(1, LicenseSnapshot.read(snapshotFile, SNAPSHOT_KEY).size());
+    }
+
+    @Test
+    public void snapshotHitsFillTheVerificationCache() throws Exception {
+        Path snapshotFile = Files.createTempDirectory("snapshot").resolve("licenses.snapshot");
+        String license = TestLicenses.createLicense(keyPair, "snapshot-cached", VALID_UNTIL, "a");
+        licenseChecker.importLicenses(Arrays.asList(license), snapshotFile, SNAPSHOT_KEY);
+
+        // a restarted application reads the snapshot and reloads its licenses later on
+        LicenseChecker restartedChecker = LicenseChecker.createChecker(TestLicenses.encodePublicKey(keyPair));
+        restartedChecker.importLicenses(Arrays.asList(license), snapshotFile, SNAPSHOT_KEY);
+        restartedChecker.importLicense(license);
+
+        LicenseCacheStatistics statistics = restartedChecker.getVerificationCacheStatistics();
+        assertEquals(1, statistics.getHits());
+        assertEquals(0, statistics.getMisses());
+        assertTrue(restartedChecker.isLicensed("snapshot-cached", "a"));
+    }
+}
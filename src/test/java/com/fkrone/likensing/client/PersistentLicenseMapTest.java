@@ -0,0 +1,78 @@
+package com.fkrone.likensing.client;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PersistentLicenseMapTest {
+
+    private static LicenseData license(String scopeId) {
+        return new LicenseData(scopeId, FeatureSet.EMPTY, LocalDate.of(2030, 1, 1));
+    }
+
+    @Test
+    public void behavesLikeAHashMap() {
+        Map<String, LicenseData> expected = new HashMap<>();
+        PersistentLicenseMap licenses = PersistentLicenseMap.EMPTY;
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            // Aa and BB have the same hash, so some scopes end up in the same collision node
+            String scopeId = (random.nextBoolean() ? "Aa" : "BB") + random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(scopeId);
+                licenses = licenses.without(scopeId);
+            } else {
+                LicenseData licenseData = license(scopeId);
+                expected.put(scopeId, licenseData);
+                licenses = licenses.with(licenseData);
+            }
+        }
+
+        assertEquals(expected.size(), licenses.size());
+        assertEquals(expected, licenses);
+        assertEquals(expected.hashCode(), licenses.hashCode());
+        for (Map.Entry<String, LicenseData> entry : expected.entrySet()) {
+            assertSame(entry.getValue(), licenses.get(new String(entry.getKey())));
+        }
+        assertNull(licenses.get("unknown"));
+        assertNull(licenses.get(42));
+
+        for (String scopeId : expected.keySet()) {
+            licenses = licenses.without(scopeId);
+        }
+        assertTrue(licenses.isEmpty());
+        assertFalse(licenses.entrySet().iterator().hasNext());
+    }
+
+    @Test
+    public void updatesLeaveFormerMapsUntouched() {
+        LicenseData first = license("first");
+        PersistentLicenseMap licenses = PersistentLicenseMap.EMPTY.with(first).with(license("second"));
+        assertSame(licenses, licenses.with(first));
+        assertSame(licenses, licenses.without("unknown"));
+
+        PersistentLicenseMap replaced = licenses.with(license("first"));
+        PersistentLicenseMap removed = licenses.without("second");
+        assertSame(first, licenses.get("first"));
+        assertEquals(2, licenses.size());
+        assertEquals(2, replaced.size());
+        assertFalse(first == replaced.get("first"));
+        assertEquals(1, removed.size());
+        assertNull(removed.get("second"));
+        assertTrue(licenses.containsKey("second"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void mapsAreImmutable() {
+        PersistentLicenseMap.EMPTY.put("scope", null);
+    }
+}
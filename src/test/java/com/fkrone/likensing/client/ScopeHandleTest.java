@@ -0,0 +1,140 @@
+package com.fkrone.likensing.client;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.security.KeyPair;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ScopeHandleTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2020, 6, 1);
+
+    private LicenseChecker licenseChecker;
+
+    @Before
+    public void setupChecker() throws Exception {
+        licenseChecker = LicenseChecker.createChecker(TODAY::toEpochDay);
+    }
+
+    private static LicenseData license(String scopeId, LocalDate validUntil, String... features) {
+        return new LicenseData(scopeId, FeatureSet.of(Arrays.asList(features)), validUntil);
+    }
+
+    @Test
+    public void handlesFollowImportsAndRemovals() {
+        ScopeHandle handle = licenseChecker.scopeHandle("scope");
+        assertEquals("scope", handle.getScopeUid());
+        assertFalse(handle.hasLicense());
+        assertFalse(handle.isLicensed("a"));
+
+        licenseChecker.getRegistry().publish(license("scope", TODAY, "a", "reporting.*"));
+        assertTrue(handle.hasLicense());
+        assertTrue(handle.isLicenseStillValid());
+        assertTrue(handle.isLicensed("a"));
+        assertTrue(handle.isLicensed(Feature.of("reporting.sales")));
+        assertEquals(0b101, handle.checkFeatureNames("a", "b", "reporting.costs"));
+
+        licenseChecker.getRegistry().publishAll(Arrays.asList(license("other", TODAY, "a"),
+                                                              license("scope", TODAY.minusDays(1), "a", "b")));
+        assertTrue(handle.hasLicense());
+        assertFalse(handle.isLicenseStillValid());
+        assertFalse(handle.isLicensed("b"));
+
+        licenseChecker.getRegistry().publish(license("scope", TODAY, "b"));
+        assertEquals(0b10, handle.checkFeatures(Feature.of("a"), Feature.of("b")));
+
+        licenseChecker.removeLicense("scope");
+        assertFalse(handle.hasLicense());
+        assertFalse(handle.isLicensed("b"));
+    }
+
+    @Test
+    public void handlesSeeLicensesPublishedBeforeTheirCreation() {
+        LicenseData licenseData = license("scope", TODAY, "a");
+        licenseChecker.getRegistry().publish(licenseData);
+
+        ScopeHandle handle = licenseChecker.scopeHandle("scope");
+        assertTrue(handle.isLicensed("a"));
+        assertSame(licenseData, licenseChecker.getRegistry().obtainSlot("scope").get());
+    }
+
+    @Test
+    public void checksAreReported() {
+        LicenseMetrics metrics = new LicenseMetrics();
+        licenseChecker.setMetricsListener(metrics);
+        ScopeHandle handle = licenseChecker.scopeHandle("scope");
+        handle.isLicensed("a");
+        licenseChecker.getRegistry().publish(license("scope", TODAY, "a"));
+        handle.isLicensed("a");
+
+        LicenseMetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(1, snapshot.getCheckCount(LicenseCheckOutcome.UNKNOWN_SCOPE));
+        assertEquals(1, snapshot.getCheckCount(LicenseCheckOutcome.LICENSED));
+    }
+
+    @Test
+    public void lazilyImportedLicensesAreVerifiedOnFirstCheck() throws Exception {
+        KeyPair keyPair = TestLicenses.generateKeyPair();
+        LicenseChecker lazyChecker = LicenseChecker.createChecker(TestLicenses.encodePublicKey(keyPair));
+        lazyChecker.setVerificationMode(LicenseVerificationMode.LAZY);
+        ScopeHandle handle = lazyChecker.scopeHandle("lazy");
+
+        lazyChecker.importLicense(TestLicenses.createLicense(keyPair,
+                                                             "lazy",
+                                                             System.currentTimeMillis() + 86_400_000L * 30,
+                                                             "a"));
+        assertTrue(handle.isLicensed("a"));
+        assertSame(lazyChecker.getRegistry().get("lazy"), lazyChecker.getRegistry().obtainSlot("lazy").get());
+    }
+
+    @Test
+    public void concurrentPublishesLeaveTheLatestLicense() throws Exception {
+        ScopeHandle handle = licenseChecker.scopeHandle("contended");
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                String feature = "feature" + i;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < 500; j++) {
+                        licenseChecker.getRegistry().publish(license("contended", TODAY, feature));
+                        licenseChecker.getRegistry().publish(license("unrelated", TODAY, feature));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LicenseData latest = licenseChecker.getRegistry().get("contended");
+        assertSame(latest, licenseChecker.getRegistry().obtainSlot("contended").get());
+        assertTrue(handle.isLicensed(latest.getLicensedFeatures().getNames().iterator().next()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyScopeUidsAreRejected() {
+        licenseChecker.scopeHandle("");
+    }
+}
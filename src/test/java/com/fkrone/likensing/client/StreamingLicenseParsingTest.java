@@ -0,0 +1,147 @@
+package com.fkrone.likensing.client;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.security.KeyPair;
+import java.security.SignatureException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingLicenseParsingTest {
+
+    private static final long VALID_UNTIL = 4102354800000L;
+
+    private static KeyPair keyPair;
+    private static LicenseParser parser;
+
+    @BeforeClass
+    public static void setupParser() throws Exception {
+        keyPair = TestLicenses.generateKeyPair();
+        parser = new LicenseParser(keyPair.getPublic(), LicenseParsingMode.STREAMING);
+    }
+
+    @Test
+    public void parsingValidLicense() throws Exception {
+        LicenseData licenseData =
+                parser.parseLicense(TestLicenses.createLicense(keyPair, "scope", VALID_UNTIL, "a", "b & c"));
+
+        assertEquals("scope", licenseData.getScopeId());
+        assertEquals(Instant.ofEpochMilli(VALID_UNTIL).atZone(ZoneId.systemDefault()).toLocalDate(),
+                     licenseData.getValidUntil());
+        assertTrue(licenseData.getLicensedFeatures().contains(Feature.of("a")));
+        assertTrue(licenseData.getLicensedFeatures().contains(Feature.of("b & c")));
+        assertFalse(licenseData.getLicensedFeatures().contains(Feature.of("b")));
+    }
+
+    @Test
+    public void parsingLicenseWithWildcardFeatures() throws Exception {
+        LicenseChecker checker = LicenseChecker.createChecker(TestLicenses.encodePublicKey(keyPair));
+        checker.importLicense(TestLicenses.createLicense(keyPair, "scope", VALID_UNTIL, "reporting.*", "export"));
+
+        assertTrue(checker.isLicensed("scope", "reporting.sales"));
+        assertTrue(checker.isLicensed("scope", Feature.of("reporting.sales.by-region")));
+        assertTrue(checker.isLicensed("scope", "export"));
+        assertFalse(checker.isLicensed("scope", "reporting"));
+        assertFalse(checker.isLicensed("scope", "export.csv"));
+        assertEquals(0b101, checker.checkFeatureNames("scope", "reporting.costs", "import", "export"));
+    }
+
+    @Test
+    public void parsingLicenseWithMarkupInProperties() throws Exception {
+        String properties = "<licensedProperties>\n"
+                            + "<!-- comment -->\n"
+                            + "<licensedFeatures>\n"
+                            + "<feature id=\"1\" a=\"2\">a</feature>\n"
+                            + "<feature></feature>\n"
+                            + "</licensedFeatures>\n"
+                            + "<validUntil>0</validUntil>\n"
+                            + "<scopeUid>scope</scopeUid>\n"
+                            + "</licensedProperties>";
+        // attributes are signed in the order of their names and empty elements are signed in their short form
+        String signedProperties = properties.replace("id=\"1\" a=\"2\"", "a=\"2\" id=\"1\"")
+                                            .replace("<feature></feature>", "<feature/>");
+        String signKey = TestLicenses.sign(keyPair, signedProperties + "\n");
+
+        LicenseData licenseData = parser.parseLicense(TestLicenses.encode(properties, signKey));
+
+        assertEquals("scope", licenseData.getScopeId());
+        assertEquals(1, licenseData.getLicensedFeatures().size());
+    }
+
+    @Test
+    public void parsingConcurrentlyWithSharedParser() throws Exception {
+        String validLicense = TestLicenses.createLicense(keyPair, "scope", VALID_UNTIL, "a");
+        String forgedLicense = TestLicenses.encode("<licensedProperties>\n<scopeUid>scope</scopeUid>\n"
+                                                   + "</licensedProperties>", "Invalid");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                boolean valid = i % 3 != 0;
+                results.add(executor.submit(() -> {
+                    try {
+                        return "scope".equals(parser.parseLicense(valid ? validLicense : forgedLicense)
+                                                    .getScopeId()) && valid;
+                    } catch (SignatureException e) {
+                        // a failed verification must not affect the next license parsed by the same thread
+                        return !valid;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = SecurityException.class)
+    public void parsingTamperedLicense() throws Exception {
+        String properties = "<licensedProperties>\n<licensedFeatures>\n<feature>b</feature>\n</licensedFeatures>\n"
+                            + "<validUntil>"
+                            + VALID_UNTIL
+                            + "</validUntil>\n<scopeUid>scope</scopeUid>\n</licensedProperties>";
+        String signKey = TestLicenses.sign(keyPair,
+                                           properties.replace("<feature>b</feature>", "<feature>a</feature>")
+                                           + "\n");
+        parser.parseLicense(TestLicenses.encode(properties, signKey));
+    }
+
+    @Test(expected = SignatureException.class)
+    public void parsingLicenseWithInvalidSignKey() throws Exception {
+        parser.parseLicense(TestLicenses.encode("<licensedProperties>\n<scopeUid>scope</scopeUid>\n"
+                                                + "</licensedProperties>", "Invalid"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parsingLicenseWithoutScope() throws Exception {
+        parser.parseLicense(TestLicenses.createLicense(keyPair,
+                                                       "<licensedProperties>\n<licensedFeatures/>\n"
+                                                       + "<validUntil>0</validUntil>\n</licensedProperties>"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parsingLicenseWithDuplicateProperties() throws Exception {
+        String properties = "<licensedProperties>\n<licensedFeatures/>\n<validUntil>0</validUntil>\n"
+                            + "<scopeUid>scope</scopeUid>\n</licensedProperties>";
+        parser.parseLicense(TestLicenses.createLicense(keyPair, properties + "\n" + properties));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parsingMalformedLicense() throws Exception {
+        parser.parseLicense(TestLicenses.encode("<licensedProperties>\n<licensedFeatures>\n</licensedProperties>",
+                                                "Invalid"));
+    }
+}
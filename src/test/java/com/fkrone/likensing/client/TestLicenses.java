@@ -0,0 +1,81 @@
+package com.fkrone.likensing.client;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.Base64;
+
+/**
+ * Creates signed licenses in the format of the Likensing Server for tests.
+ */
+class TestLicenses {
+
+    private TestLicenses() {
+    }
+
+    static KeyPair generateKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+
+    static String encodePublicKey(KeyPair keyPair) {
+        return Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded());
+    }
+
+    static String createLicense(KeyPair keyPair, String scopeUid, long validUntil, String... features)
+            throws GeneralSecurityException {
+        return createLicense(keyPair, createLicensedProperties(scopeUid, validUntil, features));
+    }
+
+    static String createLicenseForKey(KeyPair keyPair, String keyId, String scopeUid, long validUntil,
+                                      String... features) throws GeneralSecurityException {
+        String licensedProperties = createLicensedProperties(scopeUid, validUntil, features);
+        return encode(licensedProperties, sign(keyPair, licensedProperties + "\n"), keyId);
+    }
+
+    private static String createLicensedProperties(String scopeUid, long validUntil, String... features) {
+        StringBuilder properties = new StringBuilder("<licensedProperties>\n<licensedFeatures>\n");
+        for (String feature : features) {
+            properties.append("<feature>").append(escape(feature)).append("</feature>\n");
+        }
+        properties.append("</licensedFeatures>\n<validUntil>")
+                  .append(validUntil)
+                  .append("</validUntil>\n<scopeUid>")
+                  .append(escape(scopeUid))
+                  .append("</scopeUid>\n</licensedProperties>");
+        return properties.toString();
+    }
+
+    static String createLicense(KeyPair keyPair, String licensedProperties) throws GeneralSecurityException {
+        return encode(licensedProperties, sign(keyPair, licensedProperties + "\n"));
+    }
+
+    static String sign(KeyPair keyPair, String signedContent) throws GeneralSecurityException {
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(keyPair.getPrivate());
+        signature.update(signedContent.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(signature.sign());
+    }
+
+    static String encode(String licensedProperties, String signKey) {
+        return encode(licensedProperties, signKey, null);
+    }
+
+    static String encode(String licensedProperties, String signKey, String keyId) {
+        String license = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><license"
+                         + (keyId == null ? "" : " keyId=\"" + keyId + "\"")
+                         + ">\n"
+                         + licensedProperties
+                         + "\n<signKey>"
+                         + signKey
+                         + "</signKey>\n</license>\n";
+        return Base64.getEncoder().encodeToString(license.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
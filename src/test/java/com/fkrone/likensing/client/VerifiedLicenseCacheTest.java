@@ -0,0 +1,106 @@
+package com.fkrone.likensing.client;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.security.KeyPair;
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class VerifiedLicenseCacheTest {
+
+    private static KeyPair keyPair;
+    private static LicenseKeyRing keyRing;
+
+    @BeforeClass
+    public static void setupKeys() throws Exception {
+        keyPair = TestLicenses.generateKeyPair();
+        keyRing = LicenseKeyRing.of(keyPair.getPublic());
+    }
+
+    private static LicenseData license(String scopeId) {
+        return new LicenseData(scopeId, FeatureSet.EMPTY, LocalDate.now());
+    }
+
+    @Test
+    public void cachedLicensesAreFoundByTheirContent() throws Exception {
+        VerifiedLicenseCache cache = new VerifiedLicenseCache();
+        LicenseData licenseData = license("scope");
+        cache.put(cache.computeKey(keyRing, "license"), licenseData);
+
+        assertSame(licenseData, cache.get(cache.computeKey(keyRing, new String("license"))));
+        assertNull(cache.get(cache.computeKey(keyRing, "other license")));
+
+        LicenseCacheStatistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.getHits());
+        assertEquals(1, statistics.getMisses());
+        assertEquals(1, statistics.getSize());
+    }
+
+    @Test
+    public void keysDependOnThePublicKeys() throws Exception {
+        VerifiedLicenseCache cache = new VerifiedLicenseCache();
+        ByteBuffer key = cache.computeKey(keyRing, "license");
+        KeyPair otherKeyPair = TestLicenses.generateKeyPair();
+        assertNotEquals(key, cache.computeKey(LicenseKeyRing.of(otherKeyPair.getPublic()), "license"));
+        assertNotEquals(key, cache.computeKey(keyRing.withKey("other", otherKeyPair.getPublic()), "license"));
+        assertEquals(key, cache.computeKey(LicenseKeyRing.of(keyPair.getPublic()), "license"));
+    }
+
+    @Test
+    public void leastRecentlyUsedLicensesAreEvicted() throws Exception {
+        VerifiedLicenseCache cache = new VerifiedLicenseCache();
+        cache.setCapacity(2);
+        cache.put(cache.computeKey(keyRing, "a"), license("a"));
+        cache.put(cache.computeKey(keyRing, "b"), license("b"));
+        cache.get(cache.computeKey(keyRing, "a"));
+        cache.put(cache.computeKey(keyRing, "c"), license("c"));
+
+        assertNull(cache.get(cache.computeKey(keyRing, "b")));
+        assertEquals("a", cache.get(cache.computeKey(keyRing, "a")).getScopeId());
+        assertEquals("c", cache.get(cache.computeKey(keyRing, "c")).getScopeId());
+        assertEquals(1, cache.getStatistics().getEvictions());
+
+        cache.setCapacity(0);
+        assertEquals(0, cache.getStatistics().getSize());
+    }
+
+    @Test
+    public void reimportingLicenseSkipsVerification() throws Exception {
+        LicenseChecker.initLicenseChecker(TestLicenses.encodePublicKey(keyPair));
+        LicenseChecker licenseChecker = LicenseChecker.getChecker();
+        String license = TestLicenses.createLicense(keyPair, "cached", 4102354800000L, "a");
+
+        licenseChecker.importLicense(license);
+        licenseChecker.importLicense(license);
+
+        assertEquals(1, licenseChecker.getVerificationCacheStatistics().getHits());
+        assertEquals(1, licenseChecker.getVerificationCacheStatistics().getMisses());
+    }
+
+    @Test
+    public void reimportingLicensePublishesTheSameInstanceWhenSharingFeatureSets() throws Exception {
+        LicenseChecker licenseChecker = LicenseChecker.createChecker(TestLicenses.encodePublicKey(keyPair));
+        String license = TestLicenses.createLicense(keyPair, "cached", 4102354800000L, "a");
+        String otherLicense = TestLicenses.createLicense(keyPair, "other", 4102354800000L, "a");
+
+        // remembered before feature sets are shared
+        licenseChecker.importLicense(otherLicense);
+        licenseChecker.setStorageMode(LicenseStorageMode.COMPACT);
+        licenseChecker.importLicense(license);
+        licenseChecker.importLicense(otherLicense);
+        LicenseData licenseData = licenseChecker.getRegistry().get("other");
+        assertSame(licenseChecker.getRegistry().get("cached").getLicensedFeatures(),
+                   licenseData.getLicensedFeatures());
+
+        licenseChecker.importLicense(otherLicense);
+        licenseChecker.importLicense(license);
+        assertSame(licenseData, licenseChecker.getRegistry().get("other"));
+        assertEquals(3, licenseChecker.getVerificationCacheStatistics().getHits());
+    }
+}